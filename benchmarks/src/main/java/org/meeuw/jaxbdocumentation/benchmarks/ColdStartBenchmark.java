@@ -0,0 +1,53 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+
+import org.meeuw.jaxbdocumentation.TemplatesCache;
+import org.meeuw.jaxbdocumentation.TransletEngine;
+import org.meeuw.jaxbdocumentation.XsltEngine;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Creating the first transformer of a stylesheet in a new JVM: with the translets precompiled at build time ({@code engine=translets}), compiling the stylesheet with the same XSLTC, Xalan's ({@code engine=xalan}), or compiling it with the JDK's ({@code engine=jdk}). Every measurement is done in a fork of its own.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+@Fork(10)
+@State(Scope.Benchmark)
+public class ColdStartBenchmark {
+
+    @Param({"/add-documentation.xslt", "/xs3p/xs3p.xsl"})
+    public String stylesheet;
+
+    @Param({"translets", "xalan", "jdk"})
+    public String engine;
+
+    private XsltEngine xsltEngine;
+
+    @Setup(Level.Trial)
+    public void engine() {
+        switch (engine) {
+            case "translets":
+                xsltEngine = new TransletEngine();
+                break;
+            case "xalan":
+                xsltEngine = XsltEngine.of(TransformerFactory.newInstance(TransletEngine.XSLTC, null));
+                break;
+            default:
+                xsltEngine = XsltEngine.of(TransformerFactory.newDefaultInstance());
+        }
+    }
+
+    @Benchmark
+    public Transformer newTransformer() throws TransformerConfigurationException {
+        return TemplatesCache.get(xsltEngine, stylesheet).newTransformer();
+    }
+}
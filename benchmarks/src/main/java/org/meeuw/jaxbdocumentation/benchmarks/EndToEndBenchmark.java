@@ -0,0 +1,32 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.Source;
+
+import org.meeuw.jaxbdocumentation.Utils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Generating all schemas of a model, with and without documentation. The {@link jakarta.xml.bind.JAXBContext} is cached after the first call, so this measures schema generation (and transformation), not context creation.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EndToEndBenchmark extends ModelState {
+
+    @Benchmark
+    public Map<String, Source> schemaSources() throws Exception {
+        return Utils.schemaSources(classes);
+    }
+
+    @Benchmark
+    public Map<String, Source> documentationSchemaSources() throws Exception {
+        return Utils.documentationSchemaSources(classes);
+    }
+}
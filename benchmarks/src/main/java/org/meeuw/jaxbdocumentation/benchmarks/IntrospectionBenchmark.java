@@ -0,0 +1,61 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.meeuw.jaxbdocumentation.DocumentationAdder;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Collecting the documentation of a model (what {@code DocumentationAdder#createDocumentations} does).
+ * <ul>
+ *     <li>{@code cold}: the classes were never introspected (they are loaded again in a new class loader before every invocation)</li>
+ *     <li>{@code warm}: the classes were introspected before, so only the per class results are combined</li>
+ *     <li>{@code warmCached}: the same set of classes was handled before, and {@link DocumentationAdder#setUseCache(boolean)} is on</li>
+ * </ul>
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class IntrospectionBenchmark extends ModelState {
+
+    private Class<?>[] cold;
+
+    @Override
+    protected void prepare() {
+        new DocumentationAdder(classes).getDocumentations();
+        DocumentationAdder cached = new DocumentationAdder(classes);
+        cached.setUseCache(true);
+        cached.getDocumentations();
+    }
+
+    /**
+     * Loading the classes takes longer than introspecting them, so that is done outside the measurement.
+     */
+    @Setup(Level.Invocation)
+    public void load() {
+        cold = model.load();
+    }
+
+    @Benchmark
+    public Map<String, String> cold() {
+        return new DocumentationAdder(cold).getDocumentations();
+    }
+
+    @Benchmark
+    public Map<String, String> warm() {
+        return new DocumentationAdder(classes).getDocumentations();
+    }
+
+    @Benchmark
+    public Map<String, String> warmCached() {
+        DocumentationAdder adder = new DocumentationAdder(classes);
+        adder.setUseCache(true);
+        return adder.getDocumentations();
+    }
+}
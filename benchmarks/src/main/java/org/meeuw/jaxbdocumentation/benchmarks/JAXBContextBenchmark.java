@@ -0,0 +1,52 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.Source;
+import jakarta.xml.bind.JAXBException;
+
+import org.meeuw.jaxbdocumentation.JAXBContextCache;
+import org.meeuw.jaxbdocumentation.Utils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Generating the schemas of a model with JAXB ({@link Utils#schemaSources(Class[])}).
+ * <ul>
+ *     <li>{@code cold}: the {@link jakarta.xml.bind.JAXBContext} of the classes is {@link JAXBContextCache#invalidate(Class[]) invalidated} before every invocation, so it is created again</li>
+ *     <li>{@code warm}: the context is taken from {@link JAXBContextCache}</li>
+ * </ul>
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class JAXBContextBenchmark extends ModelState {
+
+    @State(Scope.Thread)
+    public static class Invalidated {
+        @Setup(Level.Invocation)
+        public void invalidate(JAXBContextBenchmark benchmark) {
+            JAXBContextCache.invalidate(benchmark.classes);
+        }
+    }
+
+    @Override
+    protected void prepare() throws Exception {
+        Utils.schemaSources(classes);
+    }
+
+    @Benchmark
+    public Map<String, Source> cold(Invalidated invalidated) throws JAXBException, IOException {
+        return Utils.schemaSources(classes);
+    }
+
+    @Benchmark
+    public Map<String, Source> warm() throws JAXBException, IOException {
+        return Utils.schemaSources(classes);
+    }
+}
@@ -0,0 +1,42 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.io.IOException;
+
+import org.meeuw.jaxbdocumentation.ModelGenerator;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * Base state of the benchmarks: a generated model, of a small, medium or large size.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@State(Scope.Benchmark)
+public abstract class ModelState {
+
+    public static final int NAMESPACES = 5;
+
+    @Param({"50", "500", "3000"})
+    public int size;
+
+    protected ModelGenerator.Model model;
+    protected Class<?>[] classes;
+
+    @Setup(Level.Trial)
+    public void generate() throws Exception {
+        model = ModelGenerator.builder().types(size).namespaces(NAMESPACES).build().generate();
+        classes = model.load();
+        prepare();
+    }
+
+    /**
+     * Further setup, after the model is loaded. (The order of several {@link Setup} methods is not defined)
+     */
+    protected void prepare() throws Exception {
+    }
+
+    @TearDown(Level.Trial)
+    public void close() throws IOException {
+        model.close();
+    }
+}
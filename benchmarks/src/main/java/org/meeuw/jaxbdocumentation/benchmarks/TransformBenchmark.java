@@ -0,0 +1,52 @@
+package org.meeuw.jaxbdocumentation.benchmarks;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.meeuw.jaxbdocumentation.DocumentationAdder;
+import org.meeuw.jaxbdocumentation.ModelGenerator;
+import org.meeuw.jaxbdocumentation.Utils;
+import org.openjdk.jmh.annotations.*;
+
+/**
+ * {@link DocumentationAdder#transform(Source, javax.xml.transform.Result)} of the schema of one namespace (a fifth of the types of the model), with the documentation already collected.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TransformBenchmark extends ModelState {
+
+    @Param({"XSLT", "STAX"})
+    public DocumentationAdder.Engine engine;
+
+    private DocumentationAdder adder;
+    private byte[] schema;
+
+    @Override
+    protected void prepare() throws Exception {
+        Source source = Utils.schemaSources(classes).get(ModelGenerator.namespace(0));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        TransformerFactory.newDefaultInstance().newTransformer().transform(source, new StreamResult(bytes));
+        schema = bytes.toByteArray();
+        adder = new DocumentationAdder(classes);
+        adder.setEngine(engine);
+        adder.getDocumentations();
+    }
+
+    @Benchmark
+    public void transform() throws TransformerException {
+        adder.transform(new StreamSource(new ByteArrayInputStream(schema)), new StreamResult(OutputStream.nullOutputStream()));
+    }
+}
@@ -0,0 +1,20 @@
+package org.meeuw.sample.a;
+
+import jakarta.xml.bind.annotation.*;
+
+import org.meeuw.sample.b.Customer;
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+
+@XmlRootElement
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlDocumentation("An order of a customer")
+public class Order {
+
+    @XmlAttribute
+    @XmlDocumentation("The number of the order")
+    String number;
+
+    @XmlElement
+    @XmlDocumentation("The customer who placed the order")
+    Customer customer;
+}
@@ -0,0 +1,5 @@
+@XmlSchema(namespace = "http://meeuw.org/sample/a", elementFormDefault = XmlNsForm.QUALIFIED)
+package org.meeuw.sample.a;
+
+import jakarta.xml.bind.annotation.XmlNsForm;
+import jakarta.xml.bind.annotation.XmlSchema;
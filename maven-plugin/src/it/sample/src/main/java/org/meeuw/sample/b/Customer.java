@@ -0,0 +1,14 @@
+package org.meeuw.sample.b;
+
+import jakarta.xml.bind.annotation.*;
+
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+
+@XmlAccessorType(XmlAccessType.FIELD)
+@XmlDocumentation("Someone who places orders")
+public class Customer {
+
+    @XmlElement
+    @XmlDocumentation("The name of the customer")
+    String name;
+}
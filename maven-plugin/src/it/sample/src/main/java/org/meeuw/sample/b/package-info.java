@@ -0,0 +1,5 @@
+@XmlSchema(namespace = "http://meeuw.org/sample/b", elementFormDefault = XmlNsForm.QUALIFIED)
+package org.meeuw.sample.b;
+
+import jakarta.xml.bind.annotation.XmlNsForm;
+import jakarta.xml.bind.annotation.XmlSchema;
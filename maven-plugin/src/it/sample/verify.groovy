@@ -0,0 +1,21 @@
+File directory = new File(basedir, 'target/classes/xsd')
+
+File order = new File(directory, 'meeuw.org_sample_a.xsd')
+assert order.isFile()
+assert order.text.contains('An order of a customer')
+assert order.text.contains('The number of the order')
+assert order.text.contains('schemaLocation="customer.xsd"')
+
+File customer = new File(directory, 'customer.xsd')
+assert customer.isFile()
+assert customer.text.contains('Someone who places orders')
+assert customer.text.contains('The name of the customer')
+
+assert new File(directory, '.jaxb-documentation').isFile()
+
+// the first run generated the XSD's, the last run found nothing changed
+String log = new File(basedir, 'build.log').text
+assert log =~ /Generated \d+ XSD's for /
+assert log =~ /XSD's in \S+ are up to date/
+
+return true
@@ -0,0 +1,81 @@
+package org.meeuw.jaxbdocumentation.maven;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * A SHA-256 over the inputs of the generation: the class files (and other files) in the class path directories, the size and modification time of the jars on the class path, and the configuration.
+ * <p>
+ * Only the contents of the files in directories count, so e.g. a recompilation which produces the same classes doesn't change the fingerprint.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class Fingerprint {
+
+    private final MessageDigest digest;
+
+    Fingerprint() {
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    Fingerprint add(String value) {
+        byte[] bytes = String.valueOf(value).getBytes(StandardCharsets.UTF_8);
+        digest.update(Integer.toString(bytes.length).getBytes(StandardCharsets.UTF_8));
+        digest.update((byte) ':');
+        digest.update(bytes);
+        return this;
+    }
+
+    /**
+     * Adds an element of the class path, which is a directory or a jar. A missing element is added as such.
+     * @param excluded A directory of which the files are not added (the output directory)
+     */
+    Fingerprint addClassPathElement(Path element, Path excluded) throws IOException {
+        add(element.toString());
+        if (Files.isDirectory(element)) {
+            List<Path> files;
+            try (Stream<Path> walk = Files.walk(element)) {
+                files = walk.filter(Files::isRegularFile)
+                    .filter(file -> !file.toAbsolutePath().normalize().startsWith(excluded))
+                    .sorted().collect(Collectors.toList());
+            }
+            for (Path file : files) {
+                add(element.relativize(file).toString().replace('\\', '/'));
+                byte[] bytes = Files.readAllBytes(file);
+                add(Integer.toString(bytes.length));
+                digest.update(bytes);
+            }
+        } else if (Files.isRegularFile(element)) {
+            add(Long.toString(Files.size(element)));
+            add(Long.toString(Files.getLastModifiedTime(element).toMillis()));
+        } else {
+            add("missing");
+        }
+        return this;
+    }
+
+    /**
+     * @return The fingerprint, as hexadecimal string. Nothing can be added after this.
+     */
+    String hash() {
+        byte[] hash = digest.digest();
+        StringBuilder result = new StringBuilder(hash.length * 2);
+        for (byte b : hash) {
+            result.append(Character.forDigit((b >> 4) & 0xf, 16));
+            result.append(Character.forDigit(b & 0xf, 16));
+        }
+        return result.toString();
+    }
+}
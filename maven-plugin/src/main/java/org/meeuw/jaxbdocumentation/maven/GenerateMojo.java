@@ -0,0 +1,241 @@
+package org.meeuw.jaxbdocumentation.maven;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Source;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.apache.maven.artifact.DependencyResolutionRequiredException;
+import org.apache.maven.plugin.AbstractMojo;
+import org.apache.maven.plugin.MojoExecutionException;
+import org.apache.maven.plugins.annotations.LifecyclePhase;
+import org.apache.maven.plugins.annotations.Mojo;
+import org.apache.maven.plugins.annotations.Parameter;
+import org.apache.maven.plugins.annotations.ResolutionScope;
+import org.apache.maven.project.MavenProject;
+import org.meeuw.jaxbdocumentation.Utils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+/**
+ * Generates the XSD's of the configured classes of the project, with the documentation of their {@link org.meeuw.xml.bind.annotation.XmlDocumentation} annotations, one file per namespace (see {@link Utils#documentationSchemaSources(java.util.concurrent.Executor, Class[])}). The namespaces are transformed in parallel.
+ * <p>
+ * Nothing is done if the classes on the class path (and the configuration) didn't change since the last run, and files whose contents didn't change are not written again.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@Mojo(name = "generate", defaultPhase = LifecyclePhase.PROCESS_CLASSES, requiresDependencyResolution = ResolutionScope.COMPILE, threadSafe = true)
+public class GenerateMojo extends AbstractMojo {
+
+    static final String FINGERPRINT = ".jaxb-documentation";
+
+    private static final String XSD = "http://www.w3.org/2001/XMLSchema";
+
+    @Parameter(defaultValue = "${project}", readonly = true, required = true)
+    private MavenProject project;
+
+    @Parameter(defaultValue = "${plugin.version}", readonly = true)
+    private String pluginVersion;
+
+    /**
+     * The (root) classes to generate the XSD's for. The classes they refer to are included too.
+     */
+    @Parameter(required = true)
+    private List<String> classes;
+
+    @Parameter(defaultValue = "${project.build.outputDirectory}/xsd", property = "jaxb-documentation.outputDirectory")
+    private File outputDirectory;
+
+    /**
+     * The file names of the XSD's, per namespace (as {@code <property><name>namespace</name><value>file name</value></property>}). For the namespaces not mentioned the file name is derived from the namespace (see {@link #fileName(String)}).
+     */
+    @Parameter
+    private Properties fileNames = new Properties();
+
+    /**
+     * The number of namespaces to transform in parallel. Defaults to the number of processors.
+     */
+    @Parameter(defaultValue = "0", property = "jaxb-documentation.threads")
+    private int threads;
+
+    /**
+     * Generate, even if nothing changed since the last run.
+     */
+    @Parameter(defaultValue = "false", property = "jaxb-documentation.force")
+    private boolean force;
+
+    @Parameter(defaultValue = "false", property = "jaxb-documentation.skip")
+    private boolean skip;
+
+    @Override
+    public void execute() throws MojoExecutionException {
+        if (skip) {
+            getLog().info("Skipped");
+            return;
+        }
+        try {
+            List<String> classPath = project.getCompileClasspathElements();
+            Path directory = outputDirectory.toPath();
+            // the output directory may well be on the class path itself
+            Path excluded = directory.toAbsolutePath().normalize();
+            Fingerprint fingerprint = new Fingerprint()
+                .add(pluginVersion)
+                .add(String.join(",", classes))
+                .add(new TreeMap<>(fileNames).toString());
+            List<URL> urls = new ArrayList<>();
+            for (String element : classPath) {
+                Path path = new File(element).toPath();
+                fingerprint.addClassPathElement(path, excluded);
+                urls.add(path.toUri().toURL());
+            }
+            String hash = fingerprint.hash();
+            Path fingerprintFile = directory.resolve(FINGERPRINT);
+            List<String> previous = Files.isRegularFile(fingerprintFile) ? Files.readAllLines(fingerprintFile, StandardCharsets.UTF_8) : Collections.emptyList();
+            if (!force && isUpToDate(directory, previous, hash)) {
+                getLog().info("XSD's in " + directory + " are up to date");
+                return;
+            }
+            Files.createDirectories(directory);
+            Set<String> written = generate(urls, directory);
+            for (String file : previous.subList(Math.min(1, previous.size()), previous.size())) {
+                if (!written.contains(file) && Files.deleteIfExists(directory.resolve(file))) {
+                    getLog().info("Deleted " + file);
+                }
+            }
+            List<String> lines = new ArrayList<>();
+            lines.add(hash);
+            lines.addAll(written);
+            Files.write(fingerprintFile, lines, StandardCharsets.UTF_8);
+        } catch (DependencyResolutionRequiredException | IOException | JAXBException | TransformerException | ClassNotFoundException e) {
+            throw new MojoExecutionException(e.getMessage(), e);
+        }
+    }
+
+    private static boolean isUpToDate(Path directory, List<String> previous, String hash) {
+        if (previous.isEmpty() || !previous.get(0).equals(hash)) {
+            return false;
+        }
+        for (String file : previous.subList(1, previous.size())) {
+            if (!Files.isRegularFile(directory.resolve(file))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return The names of the files which the XSD's are in
+     */
+    private Set<String> generate(List<URL> urls, Path directory) throws IOException, JAXBException, TransformerException, ClassNotFoundException {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        ExecutorService executor = Executors.newFixedThreadPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+        try (URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), getClass().getClassLoader())) {
+            thread.setContextClassLoader(loader);
+            Class<?>[] roots = new Class<?>[classes.size()];
+            for (int i = 0; i < roots.length; i++) {
+                roots[i] = Class.forName(classes.get(i).trim(), false, loader);
+            }
+            long start = System.nanoTime();
+            Map<String, Source> sources = Utils.documentationSchemaSources(executor, roots);
+
+            // per namespace the file name, which are also used for the imports
+            Map<String, String> files = new TreeMap<>();
+            for (Map.Entry<String, Source> e : sources.entrySet()) {
+                String namespace = targetNamespace(e.getValue());
+                files.put(namespace, fileNames.getProperty(namespace, namespace.isEmpty() ? e.getKey() : fileName(namespace)));
+            }
+            List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+            for (Source source : sources.values()) {
+                Path file = directory.resolve(files.get(targetNamespace(source)));
+                futures.add(CompletableFuture.supplyAsync(() -> write(source, files, file), executor));
+            }
+            int changed = 0;
+            for (CompletableFuture<Boolean> future : futures) {
+                if (future.join()) {
+                    changed++;
+                }
+            }
+            getLog().info("Generated " + sources.size() + " XSD's for " + classes + " in " + (System.nanoTime() - start) / 1_000_000 + " ms, " + changed + " changed, in " + directory);
+            return new TreeSet<>(files.values());
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TransformerException) {
+                throw (TransformerException) e.getCause();
+            }
+            throw new IOException(e.getCause());
+        } finally {
+            executor.shutdown();
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    /**
+     * Serializes the schema to the file, with the locations of the imports replaced by the file names. The file is only written if its contents changed.
+     * @return Whether the file was written
+     */
+    private boolean write(Source source, Map<String, String> files, Path file) {
+        try {
+            Document document = (Document) ((DOMSource) source).getNode();
+            NodeList imports = document.getElementsByTagNameNS(XSD, "import");
+            for (int i = 0; i < imports.getLength(); i++) {
+                Element element = (Element) imports.item(i);
+                String location = files.get(element.getAttribute("namespace"));
+                if (location != null) {
+                    element.setAttribute("schemaLocation", location);
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            Transformer transformer = TransformerFactory.newDefaultInstance().newTransformer();
+            transformer.setOutputProperty(OutputKeys.INDENT, "yes");
+            transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+            transformer.transform(source, new StreamResult(out));
+            byte[] bytes = out.toByteArray();
+            if (Files.isRegularFile(file) && Arrays.equals(Files.readAllBytes(file), bytes)) {
+                getLog().debug("Unchanged " + file);
+                return false;
+            }
+            Files.write(file, bytes);
+            getLog().debug("Wrote " + file);
+            return true;
+        } catch (IOException | TransformerException e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String targetNamespace(Source source) {
+        Node node = ((DOMSource) source).getNode();
+        Element root = node instanceof Document ? ((Document) node).getDocumentElement() : (Element) node;
+        return root.getAttribute("targetNamespace");
+    }
+
+    /**
+     * Derives a file name from a namespace, e.g. {@code meeuw.org_sample_a.xsd} for {@code http://meeuw.org/sample/a}.
+     */
+    static String fileName(String namespace) {
+        String name = namespace
+            .replaceFirst("^[a-zA-Z]+://", "")
+            .replaceAll("[^a-zA-Z0-9.\\-]+", "_")
+            .replaceAll("^_+|_+$", "");
+        return (name.isEmpty() ? "schema" : name) + ".xsd";
+    }
+}
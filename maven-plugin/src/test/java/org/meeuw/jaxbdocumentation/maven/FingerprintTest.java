@@ -0,0 +1,74 @@
+package org.meeuw.jaxbdocumentation.maven;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class FingerprintTest {
+
+    @TempDir
+    Path classes;
+
+    Path output;
+
+    @BeforeEach
+    public void setup() throws Exception {
+        Files.createDirectories(classes.resolve("org/meeuw"));
+        Files.write(classes.resolve("org/meeuw/A.class"), new byte[] {1, 2, 3});
+        output = Files.createDirectories(classes.resolve("xsd"));
+    }
+
+    @Test
+    public void sameContents() throws Exception {
+        String hash = fingerprint();
+        assertThat(fingerprint()).isEqualTo(hash);
+
+        // e.g. recompiled, to the same class
+        Files.setLastModifiedTime(classes.resolve("org/meeuw/A.class"), FileTime.fromMillis(0));
+        assertThat(fingerprint()).isEqualTo(hash);
+
+        // the output itself doesn't count
+        Files.write(output.resolve("a.xsd"), new byte[] {4});
+        assertThat(fingerprint()).isEqualTo(hash);
+    }
+
+    @Test
+    public void changed() throws Exception {
+        String hash = fingerprint();
+        Files.write(classes.resolve("org/meeuw/A.class"), new byte[] {1, 2, 4});
+        assertThat(fingerprint()).isNotEqualTo(hash);
+
+        Files.write(classes.resolve("org/meeuw/A.class"), new byte[] {1, 2, 3});
+        assertThat(fingerprint()).isEqualTo(hash);
+        Files.write(classes.resolve("org/meeuw/B.class"), new byte[] {});
+        assertThat(fingerprint()).isNotEqualTo(hash);
+    }
+
+    @Test
+    public void configuration() throws Exception {
+        assertThat(new Fingerprint().add("a,b").add("").hash())
+            .isNotEqualTo(new Fingerprint().add("a").add(",b").hash());
+    }
+
+    @Test
+    public void fileName() {
+        assertThat(GenerateMojo.fileName("http://meeuw.org/sample/a")).isEqualTo("meeuw.org_sample_a.xsd");
+        assertThat(GenerateMojo.fileName("urn:meeuw:a")).isEqualTo("urn_meeuw_a.xsd");
+    }
+
+    private String fingerprint() throws Exception {
+        return new Fingerprint()
+            .addClassPathElement(classes, output.toAbsolutePath().normalize())
+            .addClassPathElement(classes.resolve("missing.jar"), output)
+            .hash();
+    }
+}
@@ -0,0 +1,391 @@
+package org.meeuw.jaxbdocumentation.server;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.transform.TransformerException;
+import lombok.Getter;
+import lombok.Setter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.meeuw.jaxbdocumentation.SchemaCache;
+import org.meeuw.jaxbdocumentation.Xs3pRenderer;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the annotated XSD's of a set of classes over HTTP, with the JDK's built-in {@link HttpServer}. Requests are handled on a virtual thread each (on java &ge; 21), or else by a cached thread pool of the server's own. Handling a request may block (e.g. on generating the schemas), so a shared pool like the common fork join pool would not do.
+ * <ul>
+ *     <li>{@code /}: an index of the schemas</li>
+ *     <li>{@code /xsd/<namespace without scheme>}: the XSD of a namespace, e.g. {@code /xsd/meeuw.org/a} for {@code http://meeuw.org/a}. This way the (relative) locations of the imports JAXB generates resolve to the other XSD's.</li>
+ *     <li>{@code /html/<namespace without scheme>.html}: the documentation of a namespace, rendered by {@link Xs3pRenderer}, if {@link #setRenderer(Xs3pRenderer) configured}</li>
+ * </ul>
+ * Every response has a strong ETag (the content hash, see {@link SchemaCache.Schema#getETag()}), and {@code If-None-Match} is answered with {@code 304 Not Modified}. Responses are compressed once, and served gzipped to every client accepting that.
+ * <p>
+ * The responses are small, so set the system property {@code sun.net.httpserver.nodelay=true} (as {@link #main(String[])} does), otherwise Nagle's algorithm adds tens of milliseconds to many of them.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class SchemaServer implements AutoCloseable {
+
+    static final String XSD = "/xsd/";
+    static final String HTML = "/html/";
+
+    private final Class<?>[] classes;
+    private final HttpServer server;
+    private final ExecutorService executor = newExecutor();
+
+    /**
+     * Supplies the schemas. A hit in this cache involves no XML processing at all.
+     */
+    @Getter
+    @Setter
+    private SchemaCache schemaCache = new SchemaCache();
+
+    /**
+     * Renders the HTML documentation. If {@code null} (the default), no HTML is served.
+     */
+    @Getter
+    @Setter
+    @Nullable
+    private Xs3pRenderer renderer;
+
+    private volatile Resources resources;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+
+    /**
+     * @param address The address to listen on, e.g. {@code new InetSocketAddress(8080)}. Port 0 picks a free port.
+     * @param classes The classes to serve the schemas of
+     */
+    public SchemaServer(@NonNull InetSocketAddress address, @NonNull Class<?>... classes) throws IOException {
+        this.classes = classes.clone();
+        this.server = HttpServer.create(address, 0);
+        this.server.createContext("/", this::handle);
+        this.server.setExecutor(executor);
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    /**
+     * Stops the server, waiting at most a second for current requests to finish, and shuts down its threads.
+     */
+    @Override
+    public void close() {
+        server.stop(1);
+        executor.shutdown();
+    }
+
+    public InetSocketAddress getAddress() {
+        return server.getAddress();
+    }
+
+    /**
+     * @return The URI of the index, e.g. {@code http://localhost:8080/}
+     */
+    public URI getURI() {
+        return URI.create("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+    /**
+     * @return The number of handled requests
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of requests answered with {@code 304 Not Modified}
+     */
+    public long getNotModified() {
+        return notModified.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaServer{" + getURI() + ", requests=" + requests + ", notModified=" + notModified + "}";
+    }
+
+    /**
+     * @return The path of the XSD of the given namespace (or of the file name of a schema without namespace)
+     */
+    public static String path(@NonNull String namespace) {
+        return XSD + namespace.replaceFirst("^[a-zA-Z][a-zA-Z0-9+.\\-]*:(//)?", "");
+    }
+
+    /**
+     * @return The path of the HTML documentation of the given namespace. Xs3p links to the namespace {@code a} imported as {@code schemaLocation="a"} as {@code a.html}, which makes these match.
+     */
+    public static String htmlPath(@NonNull String namespace) {
+        return HTML + path(namespace).substring(XSD.length()) + ".html";
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        try {
+            // otherwise the connection may be reset, if it is kept alive
+            try (InputStream body = exchange.getRequestBody()) {
+                body.transferTo(OutputStream.nullOutputStream());
+            }
+            String method = exchange.getRequestMethod();
+            boolean head = "HEAD".equals(method);
+            if (!head && !"GET".equals(method)) {
+                exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            Resource resource;
+            try {
+                resource = resource(exchange.getRequestURI().getPath());
+            } catch (JAXBException | TransformerException | RuntimeException e) {
+                byte[] message = String.valueOf(e.getMessage()).getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+                exchange.sendResponseHeaders(500, head ? -1 : message.length);
+                if (!head) {
+                    exchange.getResponseBody().write(message);
+                }
+                return;
+            }
+            if (resource == null) {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            boolean gzip = acceptsGzip(exchange.getRequestHeaders());
+            String eTag = gzip ? resource.gzipETag() : resource.eTag();
+            Headers headers = exchange.getResponseHeaders();
+            headers.set("ETag", eTag);
+            headers.set("Cache-Control", "no-cache");
+            headers.set("Vary", "Accept-Encoding");
+            if (matches(exchange.getRequestHeaders().getFirst("If-None-Match"), eTag)) {
+                notModified.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            byte[] body = gzip ? resource.gzipped : resource.bytes;
+            headers.set("Content-Type", resource.contentType);
+            if (gzip) {
+                headers.set("Content-Encoding", "gzip");
+            }
+            if (head) {
+                headers.set("Content-Length", Integer.toString(body.length));
+                exchange.sendResponseHeaders(200, -1);
+            } else {
+                exchange.sendResponseHeaders(200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    @Nullable
+    private Resource resource(String path) throws JAXBException, IOException, TransformerException {
+        Resources current = resources();
+        if ("/".equals(path)) {
+            return current.index;
+        }
+        if (path.startsWith(HTML)) {
+            String namespace = current.html.get(path);
+            if (namespace == null || renderer == null) {
+                return null;
+            }
+            Resource page = current.pages.get(path);
+            if (page == null) {
+                // rendering may take a while, so it is not done while holding a lock
+                Xs3pRenderer.Page rendered = renderer.render(namespace, current.schemas);
+                page = new Resource(rendered.getBytes(), rendered.getHash(), "text/html");
+                Resource existing = current.pages.putIfAbsent(path, page);
+                if (existing != null) {
+                    page = existing;
+                }
+            }
+            return page;
+        }
+        return current.xsd.get(path);
+    }
+
+    /**
+     * @return The resources for the schemas currently in {@link #getSchemaCache()}. These are created again only if the schemas changed.
+     */
+    private Resources resources() throws JAXBException, IOException, TransformerException {
+        Map<String, SchemaCache.Schema> schemas = schemaCache.get(classes);
+        Resources current = resources;
+        if (current == null || current.schemas != schemas || current.withHtml != (renderer != null)) {
+            current = new Resources(schemas, renderer != null);
+            resources = current;
+        }
+        return current;
+    }
+
+    static boolean acceptsGzip(Headers requestHeaders) {
+        List<String> values = requestHeaders.get("Accept-Encoding");
+        if (values == null) {
+            return false;
+        }
+        for (String value : values) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase("gzip")) {
+                    for (int i = 1; i < parts.length; i++) {
+                        if (parts[i].trim().replace(" ", "").matches("q=0(\\.0*)?")) {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Whether an {@code If-None-Match} header matches the given ETag. As the specification demands, this is a weak comparison.
+     */
+    static boolean matches(@Nullable String ifNoneMatch, String eTag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            candidate = candidate.trim();
+            if (candidate.equals("*")) {
+                return true;
+            }
+            if (candidate.startsWith("W/")) {
+                candidate = candidate.substring(2);
+            }
+            if (candidate.equals(eTag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static ExecutorService newExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return Executors.newCachedThreadPool();
+        }
+    }
+
+    /**
+     * Serves the schemas (and documentation) of the given classes.
+     * <p>
+     * Usage: {@code SchemaServer <port> [--html] <class>...}
+     */
+    public static void main(String[] args) throws Exception {
+        System.setProperty("sun.net.httpserver.nodelay", "true");
+        List<String> arguments = new ArrayList<>(Arrays.asList(args));
+        boolean html = arguments.remove("--html");
+        if (arguments.size() < 2) {
+            System.err.println("Usage: SchemaServer <port> [--html] <class>...");
+            System.exit(1);
+        }
+        Class<?>[] classes = new Class<?>[arguments.size() - 1];
+        for (int i = 0; i < classes.length; i++) {
+            classes[i] = Class.forName(arguments.get(i + 1));
+        }
+        SchemaServer server = new SchemaServer(new InetSocketAddress(Integer.parseInt(arguments.get(0))), classes);
+        if (html) {
+            server.setRenderer(new Xs3pRenderer());
+        }
+        server.start();
+        System.out.println("Serving " + Arrays.asList(classes) + " at " + server.getURI());
+    }
+
+    /**
+     * All that is served for one version of the schemas
+     */
+    private static class Resources {
+        final Map<String, SchemaCache.Schema> schemas;
+        final boolean withHtml;
+        final Map<String, Resource> xsd = new HashMap<>();
+        // per path the namespace
+        final Map<String, String> html = new HashMap<>();
+        final ConcurrentMap<String, Resource> pages = new ConcurrentHashMap<>();
+        final Resource index;
+
+        Resources(Map<String, SchemaCache.Schema> schemas, boolean withHtml) {
+            this.schemas = schemas;
+            this.withHtml = withHtml;
+            StringBuilder body = new StringBuilder()
+                .append("<!DOCTYPE html>\n<html><head><title>Schemas</title></head><body>\n<ul>\n");
+            for (Map.Entry<String, SchemaCache.Schema> e : new TreeMap<>(schemas).entrySet()) {
+                String namespace = e.getKey();
+                SchemaCache.Schema schema = e.getValue();
+                xsd.put(path(namespace), new Resource(schema.getBytes(), schema.getHash(), "application/xml; charset=UTF-8"));
+                body.append("<li><a href=\"").append(escape(path(namespace).substring(1))).append("\">").append(escape(namespace)).append("</a>");
+                if (withHtml) {
+                    html.put(htmlPath(namespace), namespace);
+                    body.append(" (<a href=\"").append(escape(htmlPath(namespace).substring(1))).append("\">documentation</a>)");
+                }
+                body.append("</li>\n");
+            }
+            body.append("</ul>\n</body></html>\n");
+            byte[] bytes = body.toString().getBytes(StandardCharsets.UTF_8);
+            this.index = new Resource(bytes, SchemaCache.Schema.sha256(bytes), "text/html; charset=UTF-8");
+        }
+
+        static String escape(String value) {
+            return value.replace("&", "&amp;").replace("<", "&lt;").replace("\"", "&quot;");
+        }
+    }
+
+    /**
+     * A response body, compressed beforehand
+     */
+    private static class Resource {
+        final byte[] bytes;
+        final byte[] gzipped;
+        final String hash;
+        final String contentType;
+
+        Resource(byte[] bytes, String hash, String contentType) {
+            this.bytes = bytes;
+            this.gzipped = gzip(bytes);
+            this.hash = hash;
+            this.contentType = contentType;
+        }
+
+        String eTag() {
+            return "\"" + hash + "\"";
+        }
+
+        /**
+         * The gzipped body is another representation, so it needs another strong ETag
+         */
+        String gzipETag() {
+            return "\"" + hash + "-gzip\"";
+        }
+
+        static byte[] gzip(byte[] bytes) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 32);
+            try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+                gzip.write(bytes);
+            } catch (IOException e) {
+                throw new IllegalStateException(e);
+            }
+            return out.toByteArray();
+        }
+    }
+}
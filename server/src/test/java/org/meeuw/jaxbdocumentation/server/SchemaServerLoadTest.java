@@ -0,0 +1,130 @@
+package org.meeuw.jaxbdocumentation.server;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import lombok.extern.java.Log;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.meeuw.jaxbdocumentation.ModelGenerator;
+import org.meeuw.jaxbdocumentation.SchemaCache;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Fires requests at a {@link SchemaServer} on localhost from a number of clients for a while, and reports the throughput and the 99th percentile of the latency. Half of the requests are conditional (and answered with {@code 304}), half of them accept gzip.
+ * <p>
+ * The duration and the number of clients can be set with the system properties {@code loadtest.seconds} (default 2) and {@code loadtest.clients} (default 16). This is tagged {@code load}, and only run with the {@code load} profile ({@code mvn test -Pload}).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@Log
+@Tag("load")
+public class SchemaServerLoadTest {
+
+    static final int SECONDS = Integer.getInteger("loadtest.seconds", 2);
+    static final int CLIENTS = Integer.getInteger("loadtest.clients", 16);
+
+    @Test
+    public void load() throws Exception {
+        ModelGenerator generator = ModelGenerator.builder().types(100).namespaces(4).build();
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        try (ModelGenerator.Model model = generator.generate();
+             SchemaServer server = new SchemaServer(new InetSocketAddress("localhost", 0), model.load()[0])) {
+            server.start();
+            HttpClient client = HttpClient.newBuilder().executor(clientExecutor).build();
+            List<HttpRequest> requests = new ArrayList<>();
+            requests.add(HttpRequest.newBuilder(server.getURI()).build());
+            for (int ns = 0; ns < model.getNamespaces(); ns++) {
+                URI uri = server.getURI().resolve(SchemaServer.path(ModelGenerator.namespace(ns)).substring(1));
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri).build(), HttpResponse.BodyHandlers.ofString());
+                assertThat(response.statusCode()).isEqualTo(200);
+                String eTag = response.headers().firstValue("ETag").orElseThrow();
+                requests.add(HttpRequest.newBuilder(uri).build());
+                requests.add(HttpRequest.newBuilder(uri).header("Accept-Encoding", "gzip").build());
+                requests.add(HttpRequest.newBuilder(uri).header("If-None-Match", eTag).build());
+                requests.add(HttpRequest.newBuilder(uri).header("If-None-Match", eTag).header("Accept-Encoding", "gzip").build());
+            }
+            // warm up
+            run(client, requests, 1);
+
+            Result result = run(client, requests, SECONDS);
+            log.info(String.format("%d clients, %d s: %d requests, %.0f requests/s, p50 %.2f ms, p99 %.2f ms, max %.2f ms (%s)",
+                CLIENTS, SECONDS, result.latencies.length, result.latencies.length / (double) SECONDS,
+                result.percentile(50), result.percentile(99), result.percentile(100), server));
+            assertThat(result.errors).isZero();
+            assertThat(result.latencies).isNotEmpty();
+            assertThat(server.getNotModified()).isPositive();
+        } finally {
+            clientExecutor.shutdown();
+        }
+    }
+
+    private Result run(HttpClient client, List<HttpRequest> requests, int seconds) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            long end = System.nanoTime() + Duration.ofSeconds(seconds).toNanos();
+            List<Future<long[]>> futures = new ArrayList<>();
+            for (int c = 0; c < CLIENTS; c++) {
+                final int offset = c;
+                futures.add(executor.submit(() -> {
+                    long[] latencies = new long[1024];
+                    int count = 0;
+                    while (System.nanoTime() < end) {
+                        HttpRequest request = requests.get((offset + count) % requests.size());
+                        long start = System.nanoTime();
+                        HttpResponse<byte[]> response = client.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                        long latency = System.nanoTime() - start;
+                        if (response.statusCode() != 200 && response.statusCode() != 304) {
+                            // counted as error
+                            latency = -1;
+                        }
+                        if (count == latencies.length) {
+                            latencies = Arrays.copyOf(latencies, count * 2);
+                        }
+                        latencies[count++] = latency;
+                    }
+                    return Arrays.copyOf(latencies, count);
+                }));
+            }
+            Result result = new Result();
+            List<Long> all = new ArrayList<>();
+            for (Future<long[]> future : futures) {
+                for (long latency : future.get()) {
+                    if (latency < 0) {
+                        result.errors++;
+                    } else {
+                        all.add(latency);
+                    }
+                }
+            }
+            result.latencies = all.stream().mapToLong(Long::longValue).sorted().toArray();
+            return result;
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    static class Result {
+        long[] latencies;
+        int errors;
+
+        /**
+         * @return The given percentile of the latencies, in ms
+         */
+        double percentile(double percentile) {
+            int index = (int) Math.ceil(percentile / 100 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(latencies.length - 1, index))] / 1_000_000d;
+        }
+    }
+}
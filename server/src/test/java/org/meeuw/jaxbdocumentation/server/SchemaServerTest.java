@@ -0,0 +1,163 @@
+package org.meeuw.jaxbdocumentation.server;
+
+import java.io.ByteArrayInputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPInputStream;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.meeuw.jaxbdocumentation.DocumentationAdderTest;
+import org.meeuw.jaxbdocumentation.Xs3pRenderer;
+
+import com.sun.net.httpserver.Headers;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class SchemaServerTest {
+
+    private static final HttpClient CLIENT = HttpClient.newHttpClient();
+    private static SchemaServer server;
+
+    @BeforeAll
+    public static void start() throws Exception {
+        server = new SchemaServer(new InetSocketAddress("localhost", 0), DocumentationAdderTest.OtherNamespace.class);
+        server.setRenderer(new Xs3pRenderer());
+        server.start();
+    }
+
+    @AfterAll
+    public static void stop() {
+        server.close();
+    }
+
+    @Test
+    public void index() throws Exception {
+        HttpResponse<String> response = get("/");
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body())
+            .contains("href=\"xsd/meeuw.org/a\"")
+            .contains("href=\"xsd/meeuw.org/b\"")
+            .contains("href=\"html/meeuw.org/a.html\"");
+    }
+
+    @Test
+    public void schema() throws Exception {
+        HttpResponse<String> response = get(SchemaServer.path(DocumentationAdderTest.NS2));
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Type")).contains("application/xml; charset=UTF-8");
+        assertThat(response.body()).contains("referring to a");
+        // the import is relative, and resolves to the other schema
+        assertThat(response.body()).contains("schemaLocation=\"a\"");
+        assertThat(server.getSchemaCache().get(DocumentationAdderTest.OtherNamespace.class).get(DocumentationAdderTest.NS2).getETag())
+            .isEqualTo(response.headers().firstValue("ETag").orElseThrow());
+    }
+
+    @Test
+    public void notModified() throws Exception {
+        String path = SchemaServer.path(DocumentationAdderTest.NS);
+        String eTag = get(path).headers().firstValue("ETag").orElseThrow();
+        long before = server.getNotModified();
+
+        HttpResponse<String> response = send(request(path).header("If-None-Match", "\"other\", " + eTag).build());
+        assertThat(response.statusCode()).isEqualTo(304);
+        assertThat(response.body()).isEmpty();
+        assertThat(response.headers().firstValue("ETag")).contains(eTag);
+        assertThat(server.getNotModified()).isEqualTo(before + 1);
+
+        assertThat(send(request(path).header("If-None-Match", "\"other\"").build()).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void gzip() throws Exception {
+        String path = SchemaServer.path(DocumentationAdderTest.NS);
+        HttpResponse<byte[]> response = CLIENT.send(request(path).header("Accept-Encoding", "gzip, deflate").build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.headers().firstValue("Content-Encoding")).contains("gzip");
+        assertThat(response.headers().firstValue("Vary")).contains("Accept-Encoding");
+        String eTag = response.headers().firstValue("ETag").orElseThrow();
+        assertThat(eTag).endsWith("-gzip\"");
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(response.body()))) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo(get(path).body());
+        }
+
+        // the gzipped representation has an ETag of its own
+        assertThat(send(request(path).header("Accept-Encoding", "gzip").header("If-None-Match", eTag).build()).statusCode()).isEqualTo(304);
+        assertThat(send(request(path).header("If-None-Match", eTag).build()).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void html() throws Exception {
+        HttpResponse<String> response = get(SchemaServer.htmlPath(DocumentationAdderTest.NS2));
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).contains("<html").contains("href=\"a.html#type_a\"");
+        assertThat(get(SchemaServer.htmlPath(DocumentationAdderTest.NS)).statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    public void notFound() throws Exception {
+        assertThat(get("/xsd/meeuw.org/c").statusCode()).isEqualTo(404);
+        assertThat(get("/html/meeuw.org/c.html").statusCode()).isEqualTo(404);
+        assertThat(send(request("/").method("DELETE", HttpRequest.BodyPublishers.noBody()).build()).statusCode()).isEqualTo(405);
+    }
+
+    @Test
+    public void head() throws Exception {
+        HttpResponse<String> response = send(request(SchemaServer.path(DocumentationAdderTest.NS)).method("HEAD", HttpRequest.BodyPublishers.noBody()).build());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEmpty();
+        assertThat(response.headers().firstValue("ETag")).isPresent();
+    }
+
+    @Test
+    public void acceptsGzip() {
+        assertThat(SchemaServer.acceptsGzip(headers("gzip"))).isTrue();
+        assertThat(SchemaServer.acceptsGzip(headers("br, GZIP;q=0.5"))).isTrue();
+        assertThat(SchemaServer.acceptsGzip(headers("gzip;q=0"))).isFalse();
+        assertThat(SchemaServer.acceptsGzip(headers("deflate"))).isFalse();
+        assertThat(SchemaServer.acceptsGzip(new Headers())).isFalse();
+    }
+
+    @Test
+    public void matches() {
+        assertThat(SchemaServer.matches("\"a\"", "\"a\"")).isTrue();
+        assertThat(SchemaServer.matches("W/\"a\"", "\"a\"")).isTrue();
+        assertThat(SchemaServer.matches("*", "\"a\"")).isTrue();
+        assertThat(SchemaServer.matches("\"b\", \"c\"", "\"a\"")).isFalse();
+        assertThat(SchemaServer.matches(null, "\"a\"")).isFalse();
+    }
+
+    @Test
+    public void paths() {
+        assertThat(SchemaServer.path("http://meeuw.org/a")).isEqualTo("/xsd/meeuw.org/a");
+        assertThat(SchemaServer.path("urn:meeuw:a")).isEqualTo("/xsd/meeuw:a");
+        assertThat(SchemaServer.path("schema1.xsd")).isEqualTo("/xsd/schema1.xsd");
+        assertThat(SchemaServer.htmlPath("http://meeuw.org/a")).isEqualTo("/html/meeuw.org/a.html");
+    }
+
+    private static Headers headers(String acceptEncoding) {
+        Headers headers = new Headers();
+        headers.add("Accept-Encoding", acceptEncoding);
+        return headers;
+    }
+
+    private static HttpRequest.Builder request(String path) {
+        return HttpRequest.newBuilder(server.getURI().resolve(URI.create(path.substring(1))));
+    }
+
+    private static HttpResponse<String> get(String path) throws Exception {
+        return send(request(path).build());
+    }
+
+    private static HttpResponse<String> send(HttpRequest request) throws Exception {
+        return CLIENT.send(request, HttpResponse.BodyHandlers.ofString());
+    }
+}
@@ -0,0 +1,222 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A compact, read-only, binary representation of collected documentation (e.g. {@link DocumentationAdder#getDocumentations()}). It can be written once (e.g. at build time, see {@link #write(Map, Path)}), and then be {@link #open(Path) memory mapped}, in which case looking up a key only decodes that key's value, and hardly anything is kept on the heap.
+ * <p>
+ * This is a {@link Map}, so it can be given to {@link DocumentationAdder#DocumentationAdder(Map, Class[])}, and be used by every {@link DocumentationAdder.Engine}.
+ * <p>
+ * The format (all integers big endian):
+ * <pre>
+ * magic    4 bytes  'J' 'X' 'D' 'I'
+ * version  int      {@value #VERSION}
+ * count    int      number of entries
+ * offsets  count ints, the offset of every entry, in unsigned UTF-8 byte order of the keys
+ * entries  per entry: int key length, UTF-8 key, int value length, UTF-8 value
+ * </pre>
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class BinaryDocumentationIndex extends AbstractMap<String, String> {
+
+    static final byte[] MAGIC = {'J', 'X', 'D', 'I'};
+    static final int VERSION = 1;
+    private static final int HEADER = MAGIC.length + 4 + 4;
+
+    private final ByteBuffer buffer;
+    private final int size;
+
+    private BinaryDocumentationIndex(ByteBuffer buffer) {
+        this.buffer = buffer;
+        for (int i = 0; i < MAGIC.length; i++) {
+            if (buffer.limit() < HEADER || buffer.get(i) != MAGIC[i]) {
+                throw new IllegalArgumentException("Not a documentation index");
+            }
+        }
+        int version = buffer.getInt(MAGIC.length);
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported documentation index version " + version);
+        }
+        this.size = buffer.getInt(MAGIC.length + 4);
+    }
+
+    /**
+     * Memory maps the given file. The file must not be changed afterwards.
+     */
+    public static BinaryDocumentationIndex open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return new BinaryDocumentationIndex(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Wraps a buffer, which is supposed to contain an index as written by {@link #write(Map, OutputStream)}. The buffer must not be changed afterwards.
+     */
+    public static BinaryDocumentationIndex of(ByteBuffer buffer) {
+        return new BinaryDocumentationIndex(buffer.slice().asReadOnlyBuffer());
+    }
+
+    public static BinaryDocumentationIndex of(byte[] bytes) {
+        return of(ByteBuffer.wrap(bytes));
+    }
+
+    public static void write(Map<String, String> documentations, Path file) throws IOException {
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file))) {
+            write(documentations, out);
+        }
+    }
+
+    public static void write(Map<String, String> documentations, OutputStream outputStream) throws IOException {
+        byte[][] keys = new byte[documentations.size()][];
+        byte[][] values = new byte[keys.length][];
+        Integer[] order = new Integer[keys.length];
+        int i = 0;
+        for (Map.Entry<String, String> e : documentations.entrySet()) {
+            keys[i] = e.getKey().getBytes(StandardCharsets.UTF_8);
+            values[i] = e.getValue().getBytes(StandardCharsets.UTF_8);
+            order[i] = i;
+            i++;
+        }
+        Arrays.sort(order, (a, b) -> Arrays.compareUnsigned(keys[a], keys[b]));
+
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.write(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(keys.length);
+        long offset = HEADER + 4L * keys.length;
+        for (int o : order) {
+            if (offset > Integer.MAX_VALUE) {
+                throw new IOException("Documentation too large for index");
+            }
+            out.writeInt((int) offset);
+            offset += 8L + keys[o].length + values[o].length;
+        }
+        for (int o : order) {
+            out.writeInt(keys[o].length);
+            out.write(keys[o]);
+            out.writeInt(values[o].length);
+            out.write(values[o]);
+        }
+        out.flush();
+    }
+
+    public static byte[] toBytes(Map<String, String> documentations) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try {
+            write(documentations, bytes);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return key instanceof String && indexOf((String) key) >= 0;
+    }
+
+    @Override
+    public String get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        int index = indexOf((String) key);
+        return index < 0 ? null : value(offset(index));
+    }
+
+    @Override
+    public Set<Entry<String, String>> entrySet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<Entry<String, String>> iterator() {
+                return new Iterator<>() {
+                    int index = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return index < size;
+                    }
+
+                    @Override
+                    public Entry<String, String> next() {
+                        if (index >= size) {
+                            throw new NoSuchElementException();
+                        }
+                        int offset = offset(index++);
+                        return new SimpleImmutableEntry<>(string(offset), value(offset));
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Binary search on the UTF-8 bytes of the key, without decoding the keys in the index.
+     */
+    private int indexOf(String key) {
+        byte[] search = key.getBytes(StandardCharsets.UTF_8);
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int cmp = compare(offset(mid), search);
+            if (cmp < 0) {
+                low = mid + 1;
+            } else if (cmp > 0) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -1;
+    }
+
+    private int compare(int offset, byte[] search) {
+        int length = buffer.getInt(offset);
+        int start = offset + 4;
+        int common = Math.min(length, search.length);
+        for (int i = 0; i < common; i++) {
+            int cmp = Byte.compareUnsigned(buffer.get(start + i), search[i]);
+            if (cmp != 0) {
+                return cmp;
+            }
+        }
+        return Integer.compare(length, search.length);
+    }
+
+    private int offset(int index) {
+        return buffer.getInt(HEADER + 4 * index);
+    }
+
+    private String value(int keyOffset) {
+        return string(keyOffset + 4 + buffer.getInt(keyOffset));
+    }
+
+    private String string(int offset) {
+        byte[] bytes = new byte[buffer.getInt(offset)];
+        // absolute reads only, so a duplicate is needed to use the bulk get. This keeps the index thread-safe.
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position(offset + 4);
+        duplicate.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
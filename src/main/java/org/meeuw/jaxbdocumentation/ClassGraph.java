@@ -0,0 +1,142 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.*;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * The graph of the classes reachable from a set of classes, as walked by {@link DocumentationAdder}: per class (by name) the classes it refers to, the classes referring to it, its documentation entries (its 'fragment') and the namespaces it contributes documentation to. See {@link IncrementalSchemas}.
+ * <p>
+ * A graph is immutable.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class ClassGraph {
+
+    // in the order of a depth first walk, which is also the order in which the fragments are merged
+    private final Map<String, Node> nodes;
+    private final Map<String, Set<String>> dependents;
+
+    private ClassGraph(Map<String, Node> nodes) {
+        this.nodes = Collections.unmodifiableMap(nodes);
+        Map<String, Set<String>> dependents = new HashMap<>();
+        for (Node node : nodes.values()) {
+            for (String reference : node.references) {
+                dependents.computeIfAbsent(reference, r -> new LinkedHashSet<>()).add(node.clazz.getName());
+            }
+        }
+        this.dependents = dependents;
+    }
+
+    /**
+     * Walks the classes reachable from the given ones.
+     * @param fragments Supplies the documentation entries of a class
+     */
+    static ClassGraph walk(Class<?>[] classes, Function<Class<?>, Map<String, String>> fragments) {
+        final Map<String, Node> nodes = new LinkedHashMap<>();
+        DocumentationAdder.walk(classes, new HashSet<>(), clazz -> {
+            Set<Class<?>> references = DocumentationAdder.references(clazz);
+            nodes.put(clazz.getName(), new Node(clazz, references, fragments.apply(clazz)));
+            return references;
+        });
+        return new ClassGraph(nodes);
+    }
+
+    /**
+     * @return The names of all classes in the graph
+     */
+    public Set<String> getClassNames() {
+        return nodes.keySet();
+    }
+
+    public boolean contains(@NonNull String className) {
+        return nodes.containsKey(className);
+    }
+
+    /**
+     * @return The names of the classes the given class refers to (e.g. as the type of a field)
+     */
+    public Set<String> getReferences(@NonNull String className) {
+        Node node = nodes.get(className);
+        return node == null ? Collections.emptySet() : node.references;
+    }
+
+    /**
+     * @return The names of the classes referring to the given class
+     */
+    public Set<String> getDependents(@NonNull String className) {
+        return Collections.unmodifiableSet(dependents.getOrDefault(className, Collections.emptySet()));
+    }
+
+    /**
+     * @return The namespaces the given class contributes documentation to. This is the namespace of its XSD type, and normally only that.
+     */
+    public Set<String> getNamespaces(@NonNull String className) {
+        Node node = nodes.get(className);
+        return node == null ? Collections.emptySet() : node.namespaces;
+    }
+
+    /**
+     * @return The documentation entries of the given class (including those of its {@link jakarta.xml.bind.annotation.XmlTransient} super classes), or {@code null} if it is not in the graph
+     */
+    @Nullable
+    public Map<String, String> getFragment(@NonNull String className) {
+        Node node = nodes.get(className);
+        return node == null ? null : node.fragment;
+    }
+
+    @Nullable
+    Class<?> getClass(@NonNull String className) {
+        Node node = nodes.get(className);
+        return node == null ? null : node.clazz;
+    }
+
+    /**
+     * @return The documentation of all classes, as {@link DocumentationAdder#getDocumentations()} would collect it
+     */
+    Map<String, String> documentations() {
+        Map<String, String> result = new HashMap<>();
+        for (Node node : nodes.values()) {
+            result.putAll(node.fragment);
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    @Override
+    public String toString() {
+        return "ClassGraph{" + nodes.size() + " classes}";
+    }
+
+    /**
+     * @return The namespace of a documentation key (or type name), e.g. {@code ns} for {@code {ns}type|ELEMENT|name}
+     */
+    static String namespace(String key) {
+        int end = key.indexOf('}');
+        return key.startsWith("{") && end > 0 ? key.substring(1, end) : "";
+    }
+
+    private static class Node {
+        final Class<?> clazz;
+        final Set<String> references;
+        final Map<String, String> fragment;
+        final Set<String> namespaces;
+
+        Node(Class<?> clazz, Set<Class<?>> references, Map<String, String> fragment) {
+            this.clazz = clazz;
+            Set<String> names = new LinkedHashSet<>();
+            for (Class<?> reference : references) {
+                names.add(reference.getName());
+            }
+            this.references = Collections.unmodifiableSet(names);
+            this.fragment = Collections.unmodifiableMap(fragment);
+            Set<String> namespaces = new LinkedHashSet<>();
+            namespaces.add(namespace(DocumentationAdder.defaultName(clazz)));
+            for (String key : fragment.keySet()) {
+                namespaces.add(namespace(key));
+            }
+            this.namespaces = Collections.unmodifiableSet(namespaces);
+        }
+    }
+}
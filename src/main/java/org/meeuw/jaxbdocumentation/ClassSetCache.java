@@ -0,0 +1,187 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Caches a value (e.g. the collected documentation) per set of classes.
+ * <p>
+ * The key is the <em>contents</em> of the set of classes, so the order in which the classes are given does not matter. The classes themselves are only weakly referenced, so a cache entry does not keep a class loader alive. Entries of which a class got garbage collected are purged, and the number of entries is bounded (least recently used ones are evicted first).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class ClassSetCache<V> {
+
+    public static final int DEFAULT_MAX_SIZE = 256;
+
+    private final int maxSize;
+    private final LinkedHashMap<Key, V> map;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ClassSetCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public ClassSetCache(int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("maxSize must be positive");
+        }
+        this.maxSize = maxSize;
+        this.map = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+                if (size() > ClassSetCache.this.maxSize) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Returns the value for the given classes, calling {@code creator} if it is not yet cached.
+     * <p>
+     * The creator is called outside any lock, so it may happen (rarely) that two threads both create the same value concurrently.
+     */
+    public V get(@NonNull Class<?>[] classes, @NonNull Function<Class<?>[], V> creator) {
+        final Key key = new Key(classes);
+        synchronized (map) {
+            V value = map.get(key);
+            if (value != null) {
+                hits.incrementAndGet();
+                return value;
+            }
+        }
+        misses.incrementAndGet();
+        V created = creator.apply(classes);
+        synchronized (map) {
+            purge();
+            V existing = map.putIfAbsent(key, created);
+            return existing == null ? created : existing;
+        }
+    }
+
+    /**
+     * Removes the value for the given classes, if any.
+     * @since 0.6
+     */
+    public void invalidate(@NonNull Class<?>... classes) {
+        synchronized (map) {
+            map.remove(new Key(classes));
+        }
+    }
+
+    public void clear() {
+        synchronized (map) {
+            map.clear();
+        }
+    }
+
+    public int size() {
+        synchronized (map) {
+            purge();
+            return map.size();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * @return The number of entries that were removed, because the cache was full, or because one of their classes was garbage collected
+     */
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "ClassSetCache{size=" + size() + ", maxSize=" + maxSize + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private void purge() {
+        Iterator<Key> i = map.keySet().iterator();
+        while (i.hasNext()) {
+            if (i.next().isCollected()) {
+                i.remove();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    /**
+     * Order-insensitive key for a set of classes, which does not strongly refer to them.
+     */
+    static final class Key {
+        private final String[] names;
+        private final WeakReference<Class<?>>[] classes;
+        private final int hashCode;
+
+        @SuppressWarnings("unchecked")
+        Key(Class<?>[] classes) {
+            Class<?>[] sorted = Arrays.stream(classes)
+                .distinct()
+                .sorted(Comparator.<Class<?>, String>comparing(Class::getName).thenComparingInt(System::identityHashCode))
+                .toArray(Class<?>[]::new);
+            this.names = new String[sorted.length];
+            this.classes = new WeakReference[sorted.length];
+            for (int i = 0; i < sorted.length; i++) {
+                this.names[i] = sorted[i].getName();
+                this.classes[i] = new WeakReference<>(sorted[i]);
+            }
+            this.hashCode = Arrays.hashCode(names);
+        }
+
+        boolean isCollected() {
+            for (WeakReference<Class<?>> c : classes) {
+                if (c.get() == null) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            if (hashCode != key.hashCode || !Arrays.equals(names, key.names)) {
+                return false;
+            }
+            for (int i = 0; i < classes.length; i++) {
+                Class<?> c = classes[i].get();
+                if (c == null || c != key.classes[i].get()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -2,21 +2,28 @@ package org.meeuw.jaxbdocumentation;
 
 import java.io.*;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.*;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.*;
 import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 import jakarta.xml.bind.JAXBException;
 import jakarta.xml.bind.annotation.*;
 import javax.xml.transform.*;
+import javax.xml.transform.sax.SAXSource;
 import javax.xml.transform.stream.StreamResult;
-import javax.xml.transform.stream.StreamSource;
 import lombok.Getter;
 import lombok.Setter;
 import org.checkerframework.checker.nullness.qual.NonNull;
 import org.meeuw.xml.bind.annotation.XmlDocumentation;
 import org.meeuw.xml.bind.annotation.XmlDocumentations;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
 
 /**
  * Supplies a {@link Transformer} that adds xs:documentation tags to an existing XSD.
@@ -30,10 +37,25 @@ import org.meeuw.xml.bind.annotation.XmlDocumentations;
 public class DocumentationAdder implements Supplier<Transformer> {
 
     private static final String URI_FOR_DOCUMENTATIONS = "http://meeuw.org/documentations";
+    private static final String XSLT = "/add-documentation.xslt";
 
     private static final String PARAM_XML_STYLESHEET = "xmlStyleSheet";
     private static final String PARAM_DEBUG = "debug";
 
+    /**
+     * How the documentation is added to the XSD.
+     */
+    public enum Engine {
+        /**
+         * Using the XSLT {@code add-documentation.xslt}. This is the reference implementation.
+         */
+        XSLT,
+        /**
+         * Streaming, in one pass, with StAX (or SAX, when streaming directly from JAXB), without XSLT.
+         */
+        STAX
+    }
+
     enum Type {
         ELEMENT,
         ATTRIBUTE,
@@ -62,12 +84,46 @@ public class DocumentationAdder implements Supplier<Transformer> {
     }
 
     /**
-     * This map caches per type, the known documentation annotations.
+     * This map caches per set of types, the known documentation annotations.
+     */
+    private static final ClassSetCache<Map<String, String>> CACHE = new ClassSetCache<>();
+
+    /**
+     * The same, for the {@link #isLazy() lazy} documentations, which must not be returned if not lazy (and vice versa)
+     */
+    private static final ClassSetCache<Map<String, String>> LAZY_CACHE = new ClassSetCache<>();
+
+    /**
+     * The result of introspecting one class, cached per class. If the class was indexed at compile time (see {@link DocumentationIndexProcessor}), that index is used instead of reflection.
+     */
+    private static final ClassValue<ClassMetadata> METADATA = new ClassValue<>() {
+        @Override
+        protected ClassMetadata computeValue(Class<?> type) {
+            ClassMetadata indexed = DocumentationIndex.load(type);
+            return indexed == null ? introspect(type) : indexed;
+        }
+    };
+
+    /**
+     * Only the names of, and the references between, the classes, as needed by {@link LazyDocumentations}. This is cheaper than {@link #METADATA}, since no documentation is collected.
      */
-    private static final Map<Class<?>[], Map<String, String>> CACHE = new ConcurrentHashMap<>();
+    private static final ClassValue<ClassOutline> OUTLINE = new ClassValue<>() {
+        @Override
+        protected ClassOutline computeValue(Class<?> type) {
+            ClassMetadata indexed = DocumentationIndex.load(type);
+            if (indexed != null) {
+                return new ClassOutline(defaultName(type), indexed.references);
+            }
+            ClassMetadata references = new ClassMetadata();
+            collectReferences(type, references);
+            return new ClassOutline(defaultName(type), references.references);
+        }
+    };
 
     private final Class<?>[] classes;
     private Transformer transformer;
+    private final ThreadLocal<Transformer> threadTransformer = ThreadLocal.withInitial(this::newTransformer);
+    private volatile Map<String, String> documentations;
     @Getter
     @Setter
     private boolean useCache = false;
@@ -77,37 +133,173 @@ public class DocumentationAdder implements Supplier<Transformer> {
     @Getter
     @Setter
     private boolean debug = false;
+    /**
+     * The factory to compile the XSLT with. If {@code null} (the default), the stylesheet is provided by {@link TemplatesCache#getDefaultEngine()}.
+     */
+    @Getter
+    @Setter
+    private TransformerFactory transformerFactory = null;
+    /**
+     * If {@code true}, {@link #transform(Source, Result)} may be called from several threads at once. Every thread then uses its own {@link Transformer}, all sharing the compiled XSLT and the (immutable) collected documentation.
+     */
+    @Getter
+    @Setter
+    private boolean concurrent = false;
+    @Getter
+    @Setter
+    private Engine engine = Engine.XSLT;
+    /**
+     * If not {@code null}, the classes are introspected in parallel on this pool (e.g. {@link ForkJoinPool#commonPool()}). The collected documentation is the same.
+     */
+    @Getter
+    @Setter
+    private ForkJoinPool forkJoinPool = null;
+    /**
+     * If {@code true}, the documentation of a type is only collected when a key of it is first looked up (and then remembered). This pays off if only part of the schemas is transformed with {@link Engine#STAX}, or if most types are not documented at all. The XSLT engine needs all documentation at once, so there it makes no difference. {@link #getForkJoinPool()} is not used then.
+     * @since 0.6
+     */
+    @Getter
+    @Setter
+    private boolean lazy = false;
 
 
     public DocumentationAdder(Class<?>... classes) {
         this.classes = classes;
     }
 
+    /**
+     * Uses documentation which was collected before, e.g. a {@link BinaryDocumentationIndex}, in stead of introspecting the classes.
+     * @param documentations The documentation per key, as {@link #getDocumentations()} would have collected it
+     * @param classes The classes, only used to generate the schemas (e.g. in {@link #write(Writer)})
+     * @since 0.6
+     */
+    public DocumentationAdder(Map<String, String> documentations, Class<?>... classes) {
+        this.classes = classes;
+        this.documentations = Collections.unmodifiableMap(documentations);
+    }
+
     public void transform(Source source, Result out) throws TransformerException {
-        get().transform(source, out);
+        transform(engine == Engine.STAX ? null : concurrent ? threadTransformer.get() : get(), source, out);
+    }
+
+    /**
+     * @param transformer The (XSLT) transformer to use, or {@code null} for {@link Engine#STAX}
+     */
+    private void transform(Transformer transformer, Source source, Result out) throws TransformerException {
+        StaxAnnotator annotator = transformer == null ? new StaxAnnotator(getDocumentations(), xmlStyleSheet, debug) : null;
+        JfrEvents.Transform event = new JfrEvents.Transform();
+        event.begin();
+        long start = Metrics.start();
+        if (annotator != null) {
+            annotator.transform(source, out);
+        } else {
+            transformer.transform(source, out);
+        }
+        Metrics.end(MetricsListener.Phase.TRANSFORM, start);
+        if (event.shouldCommit()) {
+            event.namespace = source.getSystemId();
+            event.engine = (annotator != null ? Engine.STAX : Engine.XSLT).name();
+            event.classes = classes.length;
+            event.commit();
+        }
     }
 
 
+    /**
+     * Returns the {@link Transformer} of this adder. Like every {@link Transformer} it is not thread-safe. See {@link #newTransformer()} or {@link #setConcurrent(boolean)}.
+     */
     @Override
     public Transformer get() {
         if (transformer == null) {
-            try {
-                TransformerFactory transFact = TransformerFactory.newInstance();
-                transformer = transFact.newTransformer(
-                    new StreamSource(DocumentationAdder.class.getResourceAsStream("/add-documentation.xslt")));
-                transformer.setURIResolver(new DocumentationResolver(createDocumentations(classes)));
-                if (xmlStyleSheet != null) {
-                    transformer.setParameter(PARAM_XML_STYLESHEET, this.xmlStyleSheet);
+            transformer = newTransformer();
+        }
+        return transformer;
+    }
+
+    /**
+     * Creates a new, configured {@link Transformer}. This is relatively cheap, since the XSLT is compiled only once, and the documentation is collected only once per adder.
+     */
+    public Transformer newTransformer() {
+        try {
+            JfrEvents.CreateTransformer event = new JfrEvents.CreateTransformer();
+            event.begin();
+            Transformer result = TemplatesCache.get(transformerFactory, XSLT).newTransformer();
+            configure(result, xmlStyleSheet);
+            if (event.shouldCommit()) {
+                event.classes = classes.length;
+                event.commit();
+            }
+            return result;
+        } catch (TransformerConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Creates a SAX filter, which adds the documentation to the XSD events it receives, and writes the result to the given {@link Result}. This never uses XSLT.
+     */
+    ContentHandler newContentHandler(Result result) {
+        return new SaxAnnotator(getDocumentations(), xmlStyleSheet, debug, result);
+    }
+
+    /**
+     * The transformation as a stage of a {@link SchemaPipeline}. This uses the {@link #getEngine() engine} of this adder, but never adds the {@code xml-stylesheet} processing instruction, which is a stage of its own in a pipeline.
+     */
+    void transformStage(Source source, Result result) throws TransformerException {
+        if (engine == Engine.STAX) {
+            TemplatesCache.newIdentityHandler().getTransformer()
+                .transform(source, SchemaPipeline.toResult(new SaxAnnotator(getDocumentations(), null, debug, result)));
+        } else {
+            Transformer transformer = TemplatesCache.get(transformerFactory, XSLT).newTransformer();
+            configure(transformer, null);
+            transformer.transform(source, result);
+        }
+    }
+
+    private void configure(Transformer transformer, String xmlStyleSheet) {
+        transformer.setURIResolver(new DocumentationResolver(getDocumentations()));
+        if (xmlStyleSheet != null) {
+            transformer.setParameter(PARAM_XML_STYLESHEET, xmlStyleSheet);
+        }
+        transformer.setParameter(PARAM_DEBUG, this.debug);
+    }
+
+    /**
+     * @return The collected documentation for the classes of this adder, as an unmodifiable map
+     */
+    public Map<String, String> getDocumentations() {
+        Map<String, String> result = documentations;
+        if (result == null) {
+            synchronized (this) {
+                result = documentations;
+                if (result == null) {
+                    result = createDocumentations(classes);
+                    if (!(result instanceof LazyDocumentations)) {
+                        result = Collections.unmodifiableMap(result);
+                    }
+                    documentations = result;
                 }
-                transformer.setParameter(PARAM_DEBUG, this.debug);
-            } catch (TransformerConfigurationException e) {
-                throw new RuntimeException(e);
             }
         }
-        return transformer;
+        return result;
     }
 
 
+    /**
+     * @return The cache used when {@link #isUseCache()}. E.g. to inspect its hit and miss counts.
+     */
+    public static ClassSetCache<Map<String, String>> getCache() {
+        return CACHE;
+    }
+
+    /**
+     * @return The cache used when {@link #isUseCache()} and {@link #isLazy()}
+     * @since 0.6
+     */
+    public static ClassSetCache<Map<String, String>> getLazyCache() {
+        return LAZY_CACHE;
+    }
+
     public Class<?>[] getClasses() {
         return classes;
     }
@@ -124,61 +316,240 @@ public class DocumentationAdder implements Supplier<Transformer> {
         return writer.toString();
     }
 
+    /**
+     * As {@link #write(Writer)}, but the schemas of the several namespaces are transformed in parallel using the given executor. The result is the same.
+     * @param executor The executor to use. E.g. {@link Utils#defaultExecutor()}
+     * @since 0.6
+     */
+    public void write(Writer writer, Executor executor) throws JAXBException, IOException, TransformerException {
+        Map<String, StreamResult> results = transformAll(Utils.schemaSources(getClasses()), ns -> new StreamResult(new StringWriter()), executor);
+        for (StreamResult result : results.values()) {
+            writer.write(result.getWriter().toString());
+        }
+    }
+
+    /**
+     * Transforms several schemas (e.g. the result of {@link Utils#schemaSources(Class[])}) in parallel. Every task uses its own transformer.
+     * @param sources The schemas to transform, per namespace. Sources are not shared between tasks, so e.g. every {@link javax.xml.transform.dom.DOMSource} must have its own document.
+     * @param results Creates the result for a namespace
+     * @param executor The executor to use. E.g. {@link Utils#defaultExecutor()}
+     * @return The results, in the same iteration order as the sources
+     * @since 0.6
+     */
+    public <R extends Result> Map<String, R> transformAll(Map<String, Source> sources, Function<String, R> results, Executor executor) throws TransformerException {
+        // collect the documentations before forking, so that it happens only once
+        getDocumentations();
+        Map<String, R> transformed = new LinkedHashMap<>();
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (Map.Entry<String, Source> source : sources.entrySet()) {
+            final R result = results.apply(source.getKey());
+            transformed.put(source.getKey(), result);
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    if (engine == Engine.STAX) {
+                        transform(source.getValue(), result);
+                    } else {
+                        transform(newTransformer(), source.getValue(), result);
+                    }
+                } catch (TransformerException e) {
+                    throw new CompletionException(e);
+                }
+            }, executor));
+        }
+        try {
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof TransformerException) {
+                throw (TransformerException) e.getCause();
+            }
+            throw e;
+        }
+        return transformed;
+    }
+
     protected Map<String, String> createDocumentations(Class<?>... classes) {
+        final JfrEvents.CollectDocumentation event = new JfrEvents.CollectDocumentation();
+        event.begin();
+        final boolean[] created = new boolean[1];
         Function<Class<?>[], Map<String, String>> creator = (cc) -> {
-            CollectContext collectContext = new CollectContext();
-            for (Class<?> clazz : cc) {
-                handleClass(clazz, collectContext);
+            created[0] = true;
+            long start = Metrics.start();
+            if (lazy) {
+                LazyDocumentations lazyDocumentations = new LazyDocumentations(cc);
+                Metrics.end(MetricsListener.Phase.INTROSPECTION, start);
+                event.visited = lazyDocumentations.visited();
+                return lazyDocumentations;
             }
-            return collectContext.docs;
+            if (forkJoinPool != null) {
+                introspectAll(cc, forkJoinPool);
+            }
+            CollectContext collectContext = new CollectContext();
+            collect(cc, collectContext);
+            Metrics.end(MetricsListener.Phase.INTROSPECTION, start);
+            Metrics.introspected(collectContext.handled.size(), collectContext.docs.size());
+            event.visited = collectContext.handled.size();
+            return Collections.unmodifiableMap(collectContext.docs);
         };
+        final Map<String, String> result;
         if (useCache) {
-            return CACHE.computeIfAbsent(classes, creator);
+            result = (lazy ? LAZY_CACHE : CACHE).get(classes, creator);
+            Metrics.cache(MetricsListener.Cache.DOCUMENTATION, !created[0]);
         } else {
-            return creator.apply(classes);
+            result = creator.apply(classes);
+        }
+        if (event.shouldCommit()) {
+            event.classes = classes.length;
+            event.documentationKeys = result instanceof LazyDocumentations ? -1 : result.size();
+            event.cache = useCache ? (created[0] ? "MISS" : "HIT") : "DISABLED";
+            event.commit();
         }
+        return result;
     }
-    private static void handleClass(Class<?> clazz, CollectContext collectContext) {
-        if (clazz.isPrimitive()) {
-            return;
+    /**
+     * Walks the graph of classes depth first, and merges the documentation of every class. The order matters if several classes contribute the same key (the last one wins).
+     */
+    private static void collect(Class<?>[] classes, CollectContext collectContext) {
+        walk(classes, collectContext.handled, clazz -> {
+            ClassMetadata metadata = METADATA.get(clazz);
+            collectContext.docs.putAll(metadata.docs);
+            return metadata.references;
+        });
+    }
+
+    /**
+     * Walks the graph of classes reachable from the given ones depth first, visiting every (introspectable) class once. This uses an explicit stack, so deep models can't overflow the thread's stack, but the order is that of a recursive walk.
+     * @param handled The classes visited (or to skip)
+     * @param visitor Called for every class, and returns the classes it refers to. E.g. {@link #references(Class)}.
+     */
+    static void walk(Class<?>[] classes, Set<? super Class<?>> handled, Function<Class<?>, ? extends Collection<Class<?>>> visitor) {
+        final Deque<Class<?>> stack = new ArrayDeque<>();
+        for (int i = classes.length - 1; i >= 0; i--) {
+            stack.push(classes[i]);
         }
-        if (clazz.getPackage() != null && clazz.getPackage().getName().startsWith("java.")) {
-            return;
+        while (!stack.isEmpty()) {
+            Class<?> clazz = stack.pop();
+            if (!isIntrospectable(clazz) || !handled.add(clazz)) {
+                continue;
+            }
+            Class<?>[] references = visitor.apply(clazz).toArray(new Class<?>[0]);
+            for (int i = references.length - 1; i >= 0; i--) {
+                stack.push(references[i]);
+            }
+        }
+    }
+
+    /**
+     * @return The classes the given class refers to (cached)
+     */
+    static Set<Class<?>> references(Class<?> clazz) {
+        return OUTLINE.get(clazz).references;
+    }
+
+    /**
+     * @return The documentation entries of the given class (cached)
+     */
+    static Map<String, String> fragment(Class<?> clazz) {
+        return METADATA.get(clazz).docs;
+    }
+
+    /**
+     * Forgets what was cached about the given class, e.g. because it was redefined. Which cached sets of classes the class is reachable from is not recorded, so the documentation of all of them is evicted.
+     */
+    static void forget(Class<?> clazz) {
+        METADATA.remove(clazz);
+        OUTLINE.remove(clazz);
+        CACHE.clear();
+        LAZY_CACHE.clear();
+    }
+
+    /**
+     * Introspects all classes reachable from the given ones in parallel, one 'level' of the graph at a time, filling {@link #METADATA}. The actual merging is then left to {@link #collect(Class[], CollectContext)}, which then only needs cached results, and so is cheap and produces exactly the same as without this.
+     */
+    private static void introspectAll(Class<?>[] classes, ForkJoinPool pool) {
+        final Set<Class<?>> visited = ConcurrentHashMap.newKeySet();
+        List<Class<?>> level = new ArrayList<>();
+        for (Class<?> clazz : classes) {
+            if (isIntrospectable(clazz) && visited.add(clazz)) {
+                level.add(clazz);
+            }
         }
-        if (collectContext.handled.add(clazz)) {
+        while (!level.isEmpty()) {
+            final List<Class<?>> current = level;
+            level = pool.submit(() -> current.parallelStream()
+                .flatMap(c -> METADATA.get(c).references.stream())
+                .filter(visited::add)
+                .collect(Collectors.toList())
+            ).join();
+        }
+    }
 
-            XmlAccessType accessType = getAccessType(clazz);
+    private static boolean isIntrospectable(Class<?> clazz) {
+        if (clazz.isPrimitive()) {
+            return false;
+        }
+        return clazz.getPackage() == null || !clazz.getPackage().getName().startsWith("java.");
+    }
 
-            @NonNull String parent = handle(clazz.getAnnotation(XmlDocumentation.class), defaultName(clazz), collectContext.docs);
-            for (Field field : clazz.getDeclaredFields()) {
-                handleField(parent, field, accessType, collectContext);
+    /**
+     * Performs the actual reflection on one class. The result is cached in {@link #METADATA}.
+     */
+    private static ClassMetadata introspect(Class<?> clazz) {
+        ClassMetadata metadata = new ClassMetadata();
+        collectReferences(clazz, metadata);
+        XmlAccessType accessType = getAccessType(clazz);
+
+        @NonNull String parent = handle(clazz.getAnnotation(XmlDocumentation.class), defaultName(clazz), metadata.docs);
+        for (Field field : clazz.getDeclaredFields()) {
+            handleField(parent, field, accessType, metadata);
+        }
+        for (Method method : clazz.getDeclaredMethods()) {
+            handleMethod(parent, method, accessType, metadata);
+        }
+        Class<?> superClass = clazz.getSuperclass();
+        while (superClass != null && superClass.getAnnotation(XmlTransient.class) != null) {
+            XmlAccessType superAccessType = getAccessType(superClass);
+            for (Field field : superClass.getDeclaredFields()) {
+                handleField(parent, field, superAccessType, metadata);
             }
-            for (Method method : clazz.getDeclaredMethods()) {
-                handleMethod(parent, method, accessType, collectContext);
+            for (Method method : superClass.getDeclaredMethods()) {
+                handleMethod(parent, method, superAccessType, metadata);
             }
-            Class<?> superClass = clazz.getSuperclass();
-            while (superClass != null && superClass.getAnnotation(XmlTransient.class) != null) {
-                XmlAccessType superAccessType = getAccessType(superClass);
-                for (Field field : superClass.getDeclaredFields()) {
-                    handleField(parent, field, superAccessType, collectContext);
+            superClass = superClass.getSuperclass();
+        }
+        return metadata;
+    }
+
+    /**
+     * Determines the classes the given class (including its {@link XmlTransient} super classes) refers to, in the order the graph must be walked.
+     */
+    private static void collectReferences(Class<?> clazz, ClassMetadata metadata) {
+        Class<?> c = clazz;
+        do {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Type.isEnum(field).isPresent()) {
+                    referXmlElementAnnotations(field.getAnnotation(XmlElement.class), field.getAnnotation(XmlElements.class), metadata);
+                    metadata.refer(field.getType());
                 }
-                for (Method method : superClass.getDeclaredMethods()) {
-                    handleMethod(parent, method, superAccessType, collectContext);
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    referXmlElementAnnotations(method.getAnnotation(XmlElement.class), method.getAnnotation(XmlElements.class), metadata);
+                    metadata.refer(method.getReturnType());
                 }
-                superClass = superClass.getSuperclass();
             }
-
-        }
+            c = c.getSuperclass();
+        } while (c != null && c.getAnnotation(XmlTransient.class) != null);
     }
+
     private static XmlAccessType getAccessType(Class<?> clazz) {
         XmlAccessorType accessorType = clazz.getAnnotation(XmlAccessorType.class);
         return accessorType == null ? XmlAccessType.PUBLIC_MEMBER : accessorType.value();
     }
 
-    private static void handleField(@NonNull String parent, Field field, XmlAccessType accessType, CollectContext collectContext) {
+    private static void handleField(@NonNull String parent, Field field, XmlAccessType accessType, ClassMetadata metadata) {
 
         if (Type.isEnum(field).isPresent()) {
-            handleEnumValue(parent, field, collectContext);
+            handleEnumValue(parent, field, metadata);
             return;
         }
         String defaultFieldName = field.getName();
@@ -192,13 +563,7 @@ public class DocumentationAdder implements Supplier<Transformer> {
                 implicit = true;
                 break;
         }
-        handleFieldOrMethod(field, parent, defaultFieldName, implicit, collectContext.docs);
-        recurseXmlElementAnnotations(
-            collectXmlElements(field.getAnnotation(XmlElement.class), field.getAnnotation(XmlElements.class)),
-            collectContext
-        );
-        // recurse
-        handleClass(field.getType(), collectContext);
+        handleFieldOrMethod(field, parent, defaultFieldName, implicit, metadata.docs);
     }
 
     private static void handleFieldOrMethod(AccessibleObject accessibleObject, String parent, String defaultFieldName, boolean implicit, Map<String, String> docs){
@@ -218,35 +583,34 @@ public class DocumentationAdder implements Supplier<Transformer> {
     }
 
 
-    private static void handleEnumValue(String parent, Field field, CollectContext collectContext) {
+    private static void handleEnumValue(String parent, Field field, ClassMetadata metadata) {
         final String defaultFieldName = field.getName();
         final XmlDocumentation annot = field.getAnnotation(XmlDocumentation.class);
         if (annot != null) {
             String key = name(parent, Type.ENUMERATION, defaultFieldName);
-            collectContext.docs.put(key, annot.value());
+            metadata.docs.put(key, annot.value());
         }
 
     }
 
-    private static void recurseXmlElementAnnotations(Collection<XmlElement> xmlElements, CollectContext collectContext) {
-        for (XmlElement xmlElement : xmlElements) {
-            if (xmlElement.type() != XmlElement.DEFAULT.class) {
-                handleClass(xmlElement.type(), collectContext);
-            }
-        }
-    }
-    private static List<XmlElement> collectXmlElements(XmlElement xmlElement, XmlElements xmlElements) {
-        List<XmlElement> result = new ArrayList<>();
+    private static void referXmlElementAnnotations(XmlElement xmlElement, XmlElements xmlElements, ClassMetadata metadata) {
         if (xmlElement != null) {
-            result.add(xmlElement);
+            referXmlElementAnnotation(xmlElement, metadata);
         }
         if (xmlElements != null) {
-            result.addAll(Arrays.asList(xmlElements.value()));
+            for (XmlElement e : xmlElements.value()) {
+                referXmlElementAnnotation(e, metadata);
+            }
+        }
+    }
+
+    private static void referXmlElementAnnotation(XmlElement xmlElement, ClassMetadata metadata) {
+        if (xmlElement.type() != XmlElement.DEFAULT.class) {
+            metadata.refer(xmlElement.type());
         }
-        return result;
     }
 
-    private static void handleMethod(String parent, Method method, XmlAccessType accessType, CollectContext collectContext) {
+    private static void handleMethod(String parent, Method method, XmlAccessType accessType, ClassMetadata metadata) {
         if (Modifier.isStatic(method.getModifiers())) {
             return;
         }
@@ -262,17 +626,13 @@ public class DocumentationAdder implements Supplier<Transformer> {
         }
         String defaultFieldName = defaultName(method);
 
-        handleFieldOrMethod(method, parent, defaultFieldName, implicit, collectContext.docs);
-
-        recurseXmlElementAnnotations(
-            collectXmlElements(method.getAnnotation(XmlElement.class), method.getAnnotation(XmlElements.class)),
-            collectContext
-        );
-        // recurse
-        handleClass(method.getReturnType(), collectContext);
+        handleFieldOrMethod(method, parent, defaultFieldName, implicit, metadata.docs);
     }
 
-    private static String defaultName(Class<?> clazz) {
+    /**
+     * @return The name of the XSD type of the class, as used in the documentation keys, e.g. {@code {http://meeuw.org/a}a}
+     */
+    static String defaultName(Class<?> clazz) {
         String simpleName = clazz.getSimpleName();
         String name = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
 
@@ -372,7 +732,7 @@ public class DocumentationAdder implements Supplier<Transformer> {
         }
     }
 
-    private static String name(
+    static String name(
         @NonNull String parent,
         @NonNull Type type,
         @NonNull String name) {
@@ -380,18 +740,13 @@ public class DocumentationAdder implements Supplier<Transformer> {
     }
 
     /**
-     * Represents a map of values as a StreamSource, which can be resolved in XSLT to a document.
+     * Represents a map of values as a Source, which can be resolved in XSLT to a document.
      * (a node-set xslt parameter would have been a more logical idea, but the default xslt parser of the jvm's don't get that)
-     *
+     * <p>
+     * The document has the structure of {@link Properties#storeToXML(OutputStream, String)}, but it is not serialized and parsed again: the SAX events are generated directly from the map, so e.g. a {@link BinaryDocumentationIndex} is only iterated.
      */
-    private static StreamSource toDocument(Map<String, String> map) throws IOException {
-        Properties properties = new Properties();
-        properties.putAll(map);
-        ByteArrayOutputStream stream = new ByteArrayOutputStream();
-        properties.storeToXML(stream, null);
-        StreamSource source = new StreamSource(new ByteArrayInputStream(stream.toByteArray()));
-        //source.setSystemId(URI_FOR_DOCUMENTATIONS);
-        return source;
+    private static Source toDocument(Map<String, String> map) {
+        return new SAXSource(new PropertiesReader(map), new InputSource(URI_FOR_DOCUMENTATIONS));
     }
 
 
@@ -403,21 +758,178 @@ public class DocumentationAdder implements Supplier<Transformer> {
         }
 
         @Override
-        public Source resolve(String href, String base) throws TransformerException {
+        public Source resolve(String href, String base) {
             if (URI_FOR_DOCUMENTATIONS.equals(href)) {
-                try {
-                    return DocumentationAdder.toDocument(docs);
-                } catch (IOException e) {
-                    throw new TransformerException(e);
-                }
+                return DocumentationAdder.toDocument(docs);
             } else {
                 return null;
             }
         }
     }
 
+    /**
+     * Produces the SAX events of {@code <properties><entry key="..">..</entry>..</properties>} for a map.
+     */
+    private static class PropertiesReader extends XMLFilterImpl {
+        private final Map<String, String> map;
+
+        private PropertiesReader(Map<String, String> map) {
+            this.map = map;
+        }
+
+        @Override
+        public void parse(InputSource input) throws SAXException {
+            long start = Metrics.start();
+            ContentHandler handler = getContentHandler();
+            handler.startDocument();
+            handler.startElement("", "properties", "properties", new AttributesImpl());
+            AttributesImpl attributes = new AttributesImpl();
+            attributes.addAttribute("", "key", "key", "CDATA", "");
+            for (Map.Entry<String, String> entry : map.entrySet()) {
+                attributes.setValue(0, entry.getKey());
+                handler.startElement("", "entry", "entry", attributes);
+                char[] value = entry.getValue().toCharArray();
+                handler.characters(value, 0, value.length);
+                handler.endElement("", "entry", "entry");
+            }
+            handler.endElement("", "properties", "properties");
+            handler.endDocument();
+            Metrics.end(MetricsListener.Phase.SERIALIZATION, start);
+        }
+
+        @Override
+        public void parse(String systemId) throws SAXException {
+            parse(new InputSource(systemId));
+        }
+
+        @Override
+        public boolean getFeature(String name) {
+            return "http://xml.org/sax/features/namespaces".equals(name);
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) {
+            // the events are always the same
+        }
+    }
+
+    /**
+     * The documentation of a set of classes, collected per type on first lookup. Every key starts with the name of the type it belongs to (see {@link #defaultName(Class)}), so only the classes with that name need to be introspected. Those are merged in the same order as {@link #collect(Class[], CollectContext)} would, so the result is exactly the same.
+     * <p>
+     * Only iterating (or e.g. {@link #size()}) needs all documentation.
+     * <p>
+     * The classes are only weakly referenced, since this may be {@link #getLazyCache() cached}, which must not keep a class loader alive.
+     */
+    static class LazyDocumentations extends AbstractMap<String, String> {
+        // per type name, the classes having it, in the order of a depth first walk
+        private final Map<String, List<WeakReference<Class<?>>>> classesByName = new LinkedHashMap<>();
+        private final Map<String, Map<String, String>> resolved = new ConcurrentHashMap<>();
+        private final int visited;
+        private volatile Map<String, String> all;
+
+        LazyDocumentations(Class<?>[] classes) {
+            final Set<Class<?>> handled = new HashSet<>();
+            walk(classes, handled, clazz -> {
+                ClassOutline outline = OUTLINE.get(clazz);
+                classesByName.computeIfAbsent(outline.name, n -> new ArrayList<>(1)).add(new WeakReference<>(clazz));
+                return outline.references;
+            });
+            this.visited = handled.size();
+        }
+
+        @Override
+        public String get(Object key) {
+            return key instanceof String ? resolve(typeName((String) key)).get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && resolve(typeName((String) key)).containsKey(key);
+        }
+
+        @Override
+        public Set<Entry<String, String>> entrySet() {
+            Map<String, String> result = all;
+            if (result == null) {
+                result = new HashMap<>();
+                for (String name : classesByName.keySet()) {
+                    result.putAll(resolve(name));
+                }
+                result = Collections.unmodifiableMap(result);
+                all = result;
+            }
+            return result.entrySet();
+        }
+
+        /**
+         * @return The number of classes visited
+         */
+        int visited() {
+            return visited;
+        }
+
+        /**
+         * @return The number of types of which the documentation was collected until now
+         */
+        int resolved() {
+            return resolved.size();
+        }
+
+        private Map<String, String> resolve(String name) {
+            List<WeakReference<Class<?>>> named = classesByName.get(name);
+            if (named == null) {
+                return Collections.emptyMap();
+            }
+            return resolved.computeIfAbsent(name, n -> {
+                long start = Metrics.start();
+                Map<String, String> docs = new HashMap<>();
+                for (WeakReference<Class<?>> reference : named) {
+                    Class<?> clazz = reference.get();
+                    if (clazz != null) {
+                        docs.putAll(METADATA.get(clazz).docs);
+                    }
+                }
+                Metrics.end(MetricsListener.Phase.INTROSPECTION, start);
+                Metrics.introspected(named.size(), docs.size());
+                return docs;
+            });
+        }
+
+        /**
+         * @return The type name a key starts with, e.g. {@code {ns}type} for {@code {ns}type|ELEMENT|name}
+         */
+        private static String typeName(String key) {
+            int bar = key.indexOf('|', Math.max(key.indexOf('}'), 0));
+            return bar < 0 ? key : key.substring(0, bar);
+        }
+    }
+
+    private static class ClassOutline {
+        final String name;
+        final Set<Class<?>> references;
+
+        ClassOutline(String name, Set<Class<?>> references) {
+            this.name = name;
+            this.references = references;
+        }
+    }
+
     private static class CollectContext {
         final Map<String, String> docs = new HashMap<>();
-        final Set<Object> handled = new HashSet<>();
+        final Set<Class<?>> handled = new HashSet<>();
+    }
+
+    /**
+     * The documentation entries of one class (including those of its {@link XmlTransient} super classes), and the classes it refers to. This only depends on the class itself, so it can be reused for every set of classes it is reachable from.
+     */
+    static class ClassMetadata {
+        final Map<String, String> docs = new LinkedHashMap<>();
+        final Set<Class<?>> references = new LinkedHashSet<>();
+
+        void refer(Class<?> clazz) {
+            if (isIntrospectable(clazz)) {
+                references.add(clazz);
+            }
+        }
     }
 }
@@ -0,0 +1,106 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Reads the documentation index generated at compile time by {@link DocumentationIndexProcessor}. If a class is present in the index, its {@link DocumentationAdder.ClassMetadata} can be created without reflection.
+ * <p>
+ * The index is a properties file per package ({@link #resource(String)}). For every indexed class it contains:
+ * <ul>
+ *     <li>{@code <binary class name>@references}: the comma separated binary names of the classes it refers to (possibly empty)</li>
+ *     <li>{@code <binary class name>@doc@<key>}: the documentation for every key the class contributes (e.g. {@code {ns}type|ELEMENT|name})</li>
+ * </ul>
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class DocumentationIndex {
+
+    static final String RESOURCE_PREFIX = "META-INF/jaxb-documentation/";
+    static final String REFERENCES = "@references";
+    static final String DOC = "@doc@";
+
+    private static final Map<ClassLoader, Map<String, Map<String, Entry>>> PACKAGES = new WeakHashMap<>();
+
+    private DocumentationIndex() {
+    }
+
+    static String resource(String packageName) {
+        return RESOURCE_PREFIX + packageName + ".properties";
+    }
+
+    /**
+     * @return The metadata for the given class from the index, or {@code null} if it isn't indexed
+     */
+    static DocumentationAdder.ClassMetadata load(Class<?> clazz) {
+        ClassLoader loader = clazz.getClassLoader();
+        if (loader == null || clazz.isArray() || clazz.isPrimitive()) {
+            return null;
+        }
+        Entry entry = entries(loader, clazz.getPackageName()).get(clazz.getName());
+        if (entry == null) {
+            return null;
+        }
+        DocumentationAdder.ClassMetadata metadata = new DocumentationAdder.ClassMetadata();
+        metadata.docs.putAll(entry.docs);
+        for (String reference : entry.references) {
+            try {
+                metadata.refer(Class.forName(reference, false, loader));
+            } catch (ClassNotFoundException | LinkageError e) {
+                // index not consistent with the classes, fall back to reflection
+                return null;
+            }
+        }
+        return metadata;
+    }
+
+    private static Map<String, Entry> entries(ClassLoader loader, String packageName) {
+        synchronized (PACKAGES) {
+            return PACKAGES
+                .computeIfAbsent(loader, l -> new HashMap<>())
+                .computeIfAbsent(packageName, p -> read(loader, p));
+        }
+    }
+
+    private static Map<String, Entry> read(ClassLoader loader, String packageName) {
+        try (InputStream in = loader.getResourceAsStream(resource(packageName))) {
+            if (in == null) {
+                return Collections.emptyMap();
+            }
+            Properties properties = new Properties();
+            properties.load(new InputStreamReader(in, StandardCharsets.UTF_8));
+            Map<String, Entry> result = new HashMap<>();
+            for (String key : properties.stringPropertyNames()) {
+                int at = key.indexOf('@');
+                if (at <= 0) {
+                    continue;
+                }
+                Entry entry = result.computeIfAbsent(key.substring(0, at), k -> new Entry());
+                String value = properties.getProperty(key);
+                if (key.startsWith(REFERENCES, at) && key.length() == at + REFERENCES.length()) {
+                    entry.indexed = true;
+                    if (!value.isEmpty()) {
+                        entry.references.addAll(Arrays.asList(value.split(",")));
+                    }
+                } else if (key.startsWith(DOC, at)) {
+                    entry.docs.put(key.substring(at + DOC.length()), value);
+                }
+            }
+            // classes without @references entry are not (completely) indexed
+            result.values().removeIf(e -> !e.indexed);
+            return result;
+        } catch (IOException e) {
+            return Collections.emptyMap();
+        }
+    }
+
+    private static class Entry {
+        boolean indexed = false;
+        final Map<String, String> docs = new HashMap<>();
+        final List<String> references = new ArrayList<>();
+    }
+}
@@ -0,0 +1,304 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import jakarta.xml.bind.annotation.*;
+import javax.annotation.processing.*;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+import org.meeuw.xml.bind.annotation.XmlDocumentations;
+
+/**
+ * Annotation processor which precomputes at compile time what {@link DocumentationAdder} would otherwise find by reflection: per class the documentation keys it contributes and the classes it refers to. The result is written as a resource per package (see {@link DocumentationIndex}), and used at runtime when present.
+ * <p>
+ * This processor is not registered as a service, so it is only used when explicitly configured, e.g. with {@code -processor org.meeuw.jaxbdocumentation.DocumentationIndexProcessor}, or via the {@code annotationProcessors} of the maven-compiler-plugin.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@SupportedAnnotationTypes("*")
+public class DocumentationIndexProcessor extends AbstractProcessor {
+
+    private static final String DEFAULT = "##default";
+
+    /**
+     * Per package, the properties to write.
+     */
+    private final Map<String, Map<String, String>> index = new TreeMap<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getRootElements())) {
+            handleType(type);
+        }
+        if (roundEnv.processingOver()) {
+            write();
+        }
+        return false;
+    }
+
+    private void handleType(TypeElement type) {
+        if (type.getKind() != ElementKind.ANNOTATION_TYPE && type.getKind() != ElementKind.INTERFACE) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+            if (!packageName.startsWith("java.")) {
+                index(type, index.computeIfAbsent(packageName, p -> new TreeMap<>()));
+            }
+        }
+        for (TypeElement nested : ElementFilter.typesIn(type.getEnclosedElements())) {
+            handleType(nested);
+        }
+    }
+
+    /**
+     * The compile time equivalent of {@code DocumentationAdder#introspect}.
+     */
+    private void index(TypeElement type, Map<String, String> properties) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        Map<String, String> docs = new LinkedHashMap<>();
+        Set<String> references = new LinkedHashSet<>();
+
+        String parent = defaultName(type);
+        XmlDocumentation documentation = type.getAnnotation(XmlDocumentation.class);
+        if (documentation != null) {
+            docs.put(parent, documentation.value());
+        }
+        handleMembers(type, parent, docs, references);
+        if (type.getNestingKind() == NestingKind.MEMBER && type.getKind() == ElementKind.CLASS && !type.getModifiers().contains(Modifier.STATIC)) {
+            // reflection sees the synthetic field referring the enclosing instance
+            refer(type.getEnclosingElement().asType(), references);
+        }
+        TypeElement superType = superType(type);
+        while (superType != null && superType.getAnnotation(XmlTransient.class) != null) {
+            handleMembers(superType, parent, docs, references);
+            superType = superType(superType);
+        }
+
+        properties.put(binaryName + DocumentationIndex.REFERENCES, String.join(",", references));
+        for (Map.Entry<String, String> e : docs.entrySet()) {
+            properties.put(binaryName + DocumentationIndex.DOC + e.getKey(), e.getValue());
+        }
+    }
+
+    private void handleMembers(TypeElement type, String parent, Map<String, String> docs, Set<String> references) {
+        XmlAccessorType accessorType = type.getAnnotation(XmlAccessorType.class);
+        XmlAccessType accessType = accessorType == null ? XmlAccessType.PUBLIC_MEMBER : accessorType.value();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            handleField(parent, field, accessType, docs, references);
+        }
+        for (ExecutableElement method : ElementFilter.methodsIn(type.getEnclosedElements())) {
+            handleMethod(parent, method, accessType, docs, references);
+        }
+    }
+
+    private void handleField(String parent, VariableElement field, XmlAccessType accessType, Map<String, String> docs, Set<String> references) {
+        boolean isStatic = field.getModifiers().contains(Modifier.STATIC);
+        if (isStatic && isEnum(field.asType())) {
+            XmlDocumentation annot = field.getAnnotation(XmlDocumentation.class);
+            if (annot != null) {
+                docs.put(parent + "|" + DocumentationAdder.Type.ENUMERATION + "|" + field.getSimpleName(), annot.value());
+            }
+            return;
+        }
+        boolean implicit = accessType == XmlAccessType.FIELD ||
+            (accessType == XmlAccessType.PUBLIC_MEMBER && field.getModifiers().contains(Modifier.PUBLIC));
+        handleFieldOrMethod(field, parent, field.getSimpleName().toString(), implicit, docs);
+        referXmlElements(field, references);
+        refer(field.asType(), references);
+    }
+
+    private void handleMethod(String parent, ExecutableElement method, XmlAccessType accessType, Map<String, String> docs, Set<String> references) {
+        if (method.getModifiers().contains(Modifier.STATIC)) {
+            return;
+        }
+        boolean implicit = accessType == XmlAccessType.PROPERTY ||
+            (accessType == XmlAccessType.PUBLIC_MEMBER && method.getModifiers().contains(Modifier.PUBLIC));
+        String name = method.getSimpleName().toString();
+        if (name.startsWith("get")) {
+            name = name.substring(3);
+        }
+        handleFieldOrMethod(method, parent, name, implicit, docs);
+        referXmlElements(method, references);
+        refer(method.getReturnType(), references);
+    }
+
+    private void handleFieldOrMethod(Element element, String parent, String name, boolean implicit, Map<String, String> docs) {
+        if (element.getAnnotation(XmlTransient.class) != null) {
+            return;
+        }
+        XmlAttribute attribute = element.getAnnotation(XmlAttribute.class);
+        if (attribute != null) {
+            if (element.getAnnotation(XmlDocumentations.class) != null) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "An attribute cannot have multiple xml documentations", element);
+                return;
+            }
+            XmlDocumentation annot = element.getAnnotation(XmlDocumentation.class);
+            if (annot != null) {
+                if (!attribute.name().equals(DEFAULT)) {
+                    name = attribute.name();
+                }
+                docs.put(parent + "|" + DocumentationAdder.Type.ATTRIBUTE + "|" + name, annot.value());
+            }
+            return;
+        }
+        XmlDocumentation annot = element.getAnnotation(XmlDocumentation.class);
+        XmlDocumentations annots = element.getAnnotation(XmlDocumentations.class);
+        if (annots != null) {
+            annot = Arrays.stream(annots.value()).filter(x -> x.name().equals("")).findFirst().orElse(null);
+        }
+        if (annot == null && annots == null) {
+            return;
+        }
+        boolean explicit = false;
+        List<String> extraNames = new ArrayList<>();
+        XmlElement xmlElement = element.getAnnotation(XmlElement.class);
+        if (xmlElement != null) {
+            explicit = true;
+            if (!xmlElement.name().equals(DEFAULT)) {
+                name = xmlElement.name();
+            }
+        }
+        XmlElements xmlElements = element.getAnnotation(XmlElements.class);
+        if (xmlElements != null) {
+            explicit = true;
+            for (XmlElement e : xmlElements.value()) {
+                if (!e.name().equals(DEFAULT)) {
+                    extraNames.add(e.name());
+                }
+            }
+        }
+        if (implicit || explicit) {
+            if (annot != null) {
+                docs.put(parent + "|" + DocumentationAdder.Type.ELEMENT + "|" + name, annot.value());
+            }
+            for (String extraName : extraNames) {
+                XmlDocumentation extraAnnot = annots == null ? annot : Arrays.stream(annots.value()).filter(x -> x.name().equals(extraName)).findFirst().orElse(annot);
+                if (extraAnnot != null) {
+                    docs.put(parent + "|" + DocumentationAdder.Type.ELEMENT + "|" + extraName, extraAnnot.value());
+                }
+            }
+        }
+    }
+
+    /**
+     * Refers the {@code type()} of {@link XmlElement} and {@link XmlElements}. Class values of annotations can't be read directly at compile time, so these are read from the annotation mirrors.
+     */
+    private void referXmlElements(Element element, Set<String> references) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            String annotationType = ((TypeElement) mirror.getAnnotationType().asElement()).getQualifiedName().toString();
+            if (annotationType.equals(XmlElement.class.getCanonicalName())) {
+                referXmlElementType(mirror, references);
+            } else if (annotationType.equals(XmlElements.class.getCanonicalName())) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : mirror.getElementValues().entrySet()) {
+                    if (e.getKey().getSimpleName().contentEquals("value")) {
+                        for (Object value : (List<?>) e.getValue().getValue()) {
+                            referXmlElementType((AnnotationMirror) ((AnnotationValue) value).getValue(), references);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private void referXmlElementType(AnnotationMirror xmlElement, Set<String> references) {
+        for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e : xmlElement.getElementValues().entrySet()) {
+            if (e.getKey().getSimpleName().contentEquals("type")) {
+                refer((TypeMirror) e.getValue().getValue(), references);
+            }
+        }
+    }
+
+    private void refer(TypeMirror type, Set<String> references) {
+        TypeMirror erased = processingEnv.getTypeUtils().erasure(type);
+        if (erased.getKind() != TypeKind.DECLARED) {
+            // primitives, void and arrays contribute nothing
+            return;
+        }
+        TypeElement element = (TypeElement) ((DeclaredType) erased).asElement();
+        String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+        if (packageName.startsWith("java.")) {
+            return;
+        }
+        if (element.getQualifiedName().contentEquals(XmlElement.DEFAULT.class.getCanonicalName())) {
+            return;
+        }
+        references.add(processingEnv.getElementUtils().getBinaryName(element).toString());
+    }
+
+    private boolean isEnum(TypeMirror type) {
+        if (type.getKind() != TypeKind.DECLARED) {
+            return false;
+        }
+        Element element = ((DeclaredType) type).asElement();
+        return element.getKind() == ElementKind.ENUM || ((TypeElement) element).getQualifiedName().contentEquals("java.lang.Enum");
+    }
+
+    private TypeElement superType(TypeElement type) {
+        TypeMirror superClass = type.getSuperclass();
+        if (superClass.getKind() != TypeKind.DECLARED) {
+            return null;
+        }
+        return (TypeElement) ((DeclaredType) superClass).asElement();
+    }
+
+    private String defaultName(TypeElement type) {
+        String simpleName = type.getSimpleName().toString();
+        String name = Character.toLowerCase(simpleName.charAt(0)) + simpleName.substring(1);
+        String namespace = "{}";
+        XmlSchema schema = processingEnv.getElementUtils().getPackageOf(type).getAnnotation(XmlSchema.class);
+        if (schema != null && !DEFAULT.equals(schema.namespace())) {
+            namespace = "{" + schema.namespace() + "}";
+        }
+        XmlType xmlType = type.getAnnotation(XmlType.class);
+        if (xmlType != null) {
+            if (!DEFAULT.equals(xmlType.namespace())) {
+                namespace = "{" + xmlType.namespace() + "}";
+            }
+            if (!DEFAULT.equals(xmlType.name())) {
+                name = xmlType.name();
+            }
+        }
+        return namespace + name;
+    }
+
+    private void write() {
+        for (Map.Entry<String, Map<String, String>> e : index.entrySet()) {
+            Properties properties = new Properties();
+            properties.putAll(e.getValue());
+            try {
+                StringWriter buffer = new StringWriter();
+                properties.store(buffer, null);
+                FileObject resource = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", DocumentationIndex.resource(e.getKey()));
+                try (Writer writer = new java.io.OutputStreamWriter(resource.openOutputStream(), StandardCharsets.UTF_8)) {
+                    // sorted, and without the date comment, so that the result is reproducible
+                    buffer.toString().lines()
+                        .filter(l -> !l.startsWith("#"))
+                        .sorted()
+                        .forEach(l -> {
+                            try {
+                                writer.write(l);
+                                writer.write('\n');
+                            } catch (IOException ioe) {
+                                throw new IllegalStateException(ioe);
+                            }
+                        });
+                }
+            } catch (IOException ioe) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not write documentation index for " + e.getKey() + ": " + ioe.getMessage());
+            }
+        }
+    }
+}
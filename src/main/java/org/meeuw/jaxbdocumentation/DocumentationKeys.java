@@ -0,0 +1,111 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.function.UnaryOperator;
+import javax.xml.XMLConstants;
+
+/**
+ * Keeps track of the position in a streamed XSD, and determines the documentation key for its elements, exactly like {@code add-documentation.xslt} does. Used by the streaming (non-XSLT) implementations.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class DocumentationKeys {
+
+    private static final Deque<String> NONE = new ArrayDeque<>(0);
+
+    private final Deque<String> complexTypes = new ArrayDeque<>();
+    private final Deque<String> simpleTypes = new ArrayDeque<>();
+    // per open element, on which of the above stacks it pushed its name (if any)
+    private final Deque<Deque<String>> pushed = new ArrayDeque<>();
+    private String targetNamespace = "";
+    private boolean root = true;
+
+    /**
+     * @return Whether the given element is the root {@code xs:schema} element (before which an {@code xml-stylesheet} processing instruction may be inserted)
+     */
+    boolean isSchemaRoot(String namespaceUri, String localName) {
+        return root && XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespaceUri) && "schema".equals(localName);
+    }
+
+    /**
+     * Registers the start of an element.
+     * @param attributes Returns the value of an attribute without namespace, or {@code null}
+     * @return The key to look up the documentation for this element, or {@code null} if this element is never documented
+     */
+    String start(String namespaceUri, String localName, UnaryOperator<String> attributes) {
+        final boolean xs = XMLConstants.W3C_XML_SCHEMA_NS_URI.equals(namespaceUri);
+        if (root) {
+            root = false;
+            if (xs && "schema".equals(localName)) {
+                targetNamespace = valueOf(attributes.apply("targetNamespace"));
+            }
+        }
+        Deque<String> push = NONE;
+        String key = null;
+        if (xs) {
+            switch (localName) {
+                case "complexType":
+                    push = complexTypes;
+                    key = typeKey(attributes.apply("name"));
+                    break;
+                case "simpleType":
+                    push = simpleTypes;
+                    key = typeKey(attributes.apply("name"));
+                    break;
+                case "attribute":
+                    key = typeKey(outerMost(complexTypes)) + "|ATTRIBUTE|" + valueOf(attributes.apply("name"));
+                    break;
+                case "element":
+                    key = typeKey(outerMost(complexTypes)) + "|ELEMENT|" + valueOf(attributes.apply("name"));
+                    break;
+                case "enumeration":
+                    key = typeKey(outerMost(simpleTypes)) + "|ENUMERATION|" + valueOf(attributes.apply("value"));
+                    break;
+            }
+        }
+        if (push != NONE) {
+            push.push(valueOf(attributes.apply("name")));
+        }
+        pushed.push(push);
+        return key;
+    }
+
+    /**
+     * Registers the end of an element.
+     */
+    void end() {
+        Deque<String> push = pushed.pop();
+        if (push != NONE) {
+            push.pop();
+        }
+    }
+
+    boolean isInDocument() {
+        return !root && !pushed.isEmpty();
+    }
+
+    /**
+     * Like {@code ancestor::xs:complexType/@name} in XSLT: the name of the outermost enclosing type which has a name.
+     */
+    private static String outerMost(Deque<String> names) {
+        Iterator<String> i = names.descendingIterator();
+        while (i.hasNext()) {
+            String name = i.next();
+            if (!name.isEmpty()) {
+                return name;
+            }
+        }
+        return "";
+    }
+
+    private String typeKey(String name) {
+        return "{" + targetNamespace + "}" + valueOf(name);
+    }
+
+    static String valueOf(String value) {
+        return value == null ? "" : value;
+    }
+}
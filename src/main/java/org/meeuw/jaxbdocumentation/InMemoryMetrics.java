@@ -0,0 +1,126 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A {@link MetricsListener} which just sums everything in memory. E.g. to be periodically read (and {@link #reset()}) by some exporter, or to inspect in tests.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class InMemoryMetrics implements MetricsListener {
+
+    private final Map<Phase, PhaseStats> phases = new EnumMap<>(Phase.class);
+    private final Map<Cache, LongAdder> hits = new EnumMap<>(Cache.class);
+    private final Map<Cache, LongAdder> misses = new EnumMap<>(Cache.class);
+    private final LongAdder introspections = new LongAdder();
+    private final LongAdder classes = new LongAdder();
+    private final LongAdder documentationKeys = new LongAdder();
+
+    public InMemoryMetrics() {
+        // all entries are created up front, so the maps are never modified afterwards, and need no synchronization
+        for (Phase phase : Phase.values()) {
+            phases.put(phase, new PhaseStats());
+        }
+        for (Cache cache : Cache.values()) {
+            hits.put(cache, new LongAdder());
+            misses.put(cache, new LongAdder());
+        }
+    }
+
+    @Override
+    public void phase(Phase phase, long nanos) {
+        PhaseStats stats = phases.get(phase);
+        stats.count.increment();
+        stats.total.add(nanos);
+        stats.max.accumulate(nanos);
+    }
+
+    @Override
+    public void introspected(int classes, int documentationKeys) {
+        this.introspections.increment();
+        this.classes.add(classes);
+        this.documentationKeys.add(documentationKeys);
+    }
+
+    @Override
+    public void cache(Cache cache, boolean hit) {
+        (hit ? hits : misses).get(cache).increment();
+    }
+
+    /**
+     * @return How often the given phase was measured
+     */
+    public long getCount(Phase phase) {
+        return phases.get(phase).count.sum();
+    }
+
+    public Duration getTotal(Phase phase) {
+        return Duration.ofNanos(phases.get(phase).total.sum());
+    }
+
+    public Duration getMax(Phase phase) {
+        return Duration.ofNanos(phases.get(phase).max.get());
+    }
+
+    public long getHits(Cache cache) {
+        return hits.get(cache).sum();
+    }
+
+    public long getMisses(Cache cache) {
+        return misses.get(cache).sum();
+    }
+
+    public long getIntrospections() {
+        return introspections.sum();
+    }
+
+    /**
+     * @return The total number of classes visited while collecting documentation
+     */
+    public long getClasses() {
+        return classes.sum();
+    }
+
+    /**
+     * @return The total number of documentation keys collected
+     */
+    public long getDocumentationKeys() {
+        return documentationKeys.sum();
+    }
+
+    public void reset() {
+        for (PhaseStats stats : phases.values()) {
+            stats.count.reset();
+            stats.total.reset();
+            stats.max.reset();
+        }
+        hits.values().forEach(LongAdder::reset);
+        misses.values().forEach(LongAdder::reset);
+        introspections.reset();
+        classes.reset();
+        documentationKeys.reset();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("InMemoryMetrics{");
+        for (Phase phase : Phase.values()) {
+            builder.append(phase).append('=').append(getCount(phase)).append('/').append(getTotal(phase).toMillis()).append("ms, ");
+        }
+        for (Cache cache : Cache.values()) {
+            builder.append(cache).append("_CACHE=").append(getHits(cache)).append('/').append(getMisses(cache)).append(", ");
+        }
+        return builder.append("classes=").append(getClasses()).append(", documentationKeys=").append(getDocumentationKeys()).append('}').toString();
+    }
+
+    private static class PhaseStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder total = new LongAdder();
+        final LongAccumulator max = new LongAccumulator(Math::max, 0);
+    }
+}
@@ -0,0 +1,252 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.SchemaOutputResolver;
+import javax.xml.transform.Result;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import lombok.Getter;
+import lombok.Setter;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * The annotated schemas of a set of classes, which can be updated when some of those classes change (e.g. in a development mode, or a service which reloads classes) without redoing everything.
+ * <p>
+ * The {@link ClassGraph} of the classes is recorded, and on an {@link #update(Class[], Collection) update} only the documentation of the changed classes is collected again. Only the schemas of namespaces whose documentation changed, or whose schema generated by JAXB changed (e.g. because a field was added), are transformed again; the other ones are reused as they are. The schemas generated by JAXB itself are always regenerated, since a {@link jakarta.xml.bind.JAXBContext} is for a set of classes as a whole.
+ * <p>
+ * The result is the same as that of {@link SchemaCache#get(Class[])} for the new classes. This class is thread-safe.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class IncrementalSchemas {
+
+    /**
+     * The engine used to add the documentation.
+     */
+    @Getter
+    @Setter
+    private DocumentationAdder.Engine engine = DocumentationAdder.Engine.XSLT;
+
+    private Class<?>[] classes;
+    private ClassGraph graph;
+    // per schema (namespace, or file name for the schema without namespace), as generated by JAXB
+    private Map<String, Generated> generated;
+    private Map<String, String> documentations;
+    private Map<String, SchemaCache.Schema> schemas;
+
+    private final AtomicLong introspections = new AtomicLong();
+    private final AtomicLong transformations = new AtomicLong();
+
+    public IncrementalSchemas(@NonNull Class<?>... classes) {
+        this.classes = classes.clone();
+    }
+
+    /**
+     * Returns the annotated schemas, per namespace. The first call generates them all.
+     */
+    public synchronized Map<String, SchemaCache.Schema> getSchemas() throws JAXBException, IOException, TransformerException {
+        if (schemas == null) {
+            graph = ClassGraph.walk(classes, this::introspect);
+            documentations = graph.documentations();
+            generated = generate(classes);
+            schemas = transform(generated.keySet(), Collections.emptyMap());
+        }
+        return schemas;
+    }
+
+    public synchronized Class<?>[] getClasses() {
+        return classes.clone();
+    }
+
+    /**
+     * @return The graph of the classes, as of the last update (or {@code null} if nothing was generated yet)
+     */
+    public synchronized ClassGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Updates the schemas after a change of some classes.
+     * @param classes The (new) classes to generate the schemas for. This can be the same classes as before, e.g. if they were redefined in place.
+     * @param changed The names of the classes which changed. Classes which are added or removed need not be mentioned, but the classes referring to them do (they changed too after all).
+     * @return The keys of the schemas which were transformed again (including new ones)
+     */
+    public synchronized Set<String> update(@NonNull Class<?>[] classes, @NonNull Collection<String> changed) throws JAXBException, IOException, TransformerException {
+        if (schemas == null) {
+            this.classes = classes.clone();
+            return getSchemas().keySet();
+        }
+        final ClassGraph previous = graph;
+        final Set<String> changedNames = new HashSet<>(changed);
+        for (String name : changedNames) {
+            Class<?> clazz = previous.getClass(name);
+            if (clazz != null) {
+                DocumentationAdder.forget(clazz);
+            }
+        }
+        final ClassGraph next = ClassGraph.walk(classes, clazz -> {
+            String name = clazz.getName();
+            Map<String, String> fragment = changedNames.contains(name) ? null : previous.getFragment(name);
+            return fragment != null ? fragment : introspect(clazz);
+        });
+        for (String name : changedNames) {
+            Class<?> clazz = previous.getClass(name);
+            if (clazz != null && next.getClass(name) == clazz) {
+                // a class redefined in place (anywhere in the graph), so the cached context would not be renewed otherwise
+                JAXBContextCache.invalidate(classes);
+                break;
+            }
+        }
+
+        // the namespaces of which the documentation might have changed
+        Set<String> namespaces = new HashSet<>();
+        for (String name : changedNames) {
+            namespaces.addAll(previous.getNamespaces(name));
+            namespaces.addAll(next.getNamespaces(name));
+        }
+        for (String name : previous.getClassNames()) {
+            if (!next.contains(name)) {
+                namespaces.addAll(previous.getNamespaces(name));
+            }
+        }
+        for (String name : next.getClassNames()) {
+            if (!previous.contains(name)) {
+                namespaces.addAll(next.getNamespaces(name));
+            }
+        }
+        final Map<String, String> nextDocumentations = next.documentations();
+        namespaces.removeIf(namespace -> select(documentations, namespace).equals(select(nextDocumentations, namespace)));
+
+        final Map<String, Generated> nextGenerated = generate(classes);
+        final Set<String> affected = new TreeSet<>();
+        for (Map.Entry<String, Generated> e : nextGenerated.entrySet()) {
+            Generated before = generated.get(e.getKey());
+            if (before == null || !Arrays.equals(before.bytes, e.getValue().bytes) || namespaces.contains(e.getValue().namespace)) {
+                affected.add(e.getKey());
+            }
+        }
+
+        this.classes = classes.clone();
+        this.graph = next;
+        this.documentations = nextDocumentations;
+        this.generated = nextGenerated;
+        this.schemas = transform(affected, schemas);
+        return Collections.unmodifiableSet(affected);
+    }
+
+    /**
+     * Updates the schemas after a change of the given classes, which replace the classes with the same names. E.g. after the classes were reloaded by a new class loader.
+     * @return The keys of the schemas which were transformed again
+     */
+    public synchronized Set<String> update(@NonNull Class<?>... changed) throws JAXBException, IOException, TransformerException {
+        Map<String, Class<?>> replacements = new HashMap<>();
+        for (Class<?> clazz : changed) {
+            replacements.put(clazz.getName(), clazz);
+        }
+        Class<?>[] next = new Class<?>[classes.length];
+        for (int i = 0; i < classes.length; i++) {
+            next[i] = replacements.getOrDefault(classes[i].getName(), classes[i]);
+        }
+        return update(next, replacements.keySet());
+    }
+
+    /**
+     * @return The number of classes for which the documentation was collected
+     */
+    public long getIntrospections() {
+        return introspections.get();
+    }
+
+    /**
+     * @return The number of schemas that were transformed
+     */
+    public long getTransformations() {
+        return transformations.get();
+    }
+
+    @Override
+    public String toString() {
+        return "IncrementalSchemas{" + graph + ", introspections=" + introspections + ", transformations=" + transformations + "}";
+    }
+
+    private Map<String, String> introspect(Class<?> clazz) {
+        introspections.incrementAndGet();
+        return DocumentationAdder.fragment(clazz);
+    }
+
+    /**
+     * Transforms the given schemas, and takes the other ones from the given previous result
+     */
+    private Map<String, SchemaCache.Schema> transform(Set<String> keys, Map<String, SchemaCache.Schema> previous) throws TransformerException {
+        DocumentationAdder adder = new DocumentationAdder(documentations, classes);
+        adder.setEngine(engine);
+        Map<String, SchemaCache.Schema> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Generated> e : generated.entrySet()) {
+            String key = e.getKey();
+            if (keys.contains(key) || !previous.containsKey(key)) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                StreamResult target = new StreamResult(out);
+                target.setSystemId(key);
+                adder.transform(new StreamSource(new ByteArrayInputStream(e.getValue().bytes), key), target);
+                transformations.incrementAndGet();
+                result.put(key, new SchemaCache.Schema(key, out.toByteArray()));
+            } else {
+                result.put(key, previous.get(key));
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Generates the schemas with JAXB (without documentation), sorted by key
+     */
+    private static Map<String, Generated> generate(Class<?>[] classes) throws JAXBException, IOException {
+        final Map<String, ByteArrayOutputStream> outputs = new TreeMap<>();
+        final Map<String, String> namespaces = new HashMap<>();
+        long start = Metrics.start();
+        JAXBContextCache.get(classes).generateSchema(new SchemaOutputResolver() {
+            @Override
+            public Result createOutput(String namespaceUri, String suggestedFileName) {
+                String namespace = namespaceUri == null ? "" : namespaceUri;
+                String key = namespace.length() > 0 ? namespace : suggestedFileName;
+                namespaces.put(key, namespace);
+                StreamResult result = new StreamResult(outputs.computeIfAbsent(key, k -> new ByteArrayOutputStream()));
+                result.setSystemId(key);
+                return result;
+            }
+        });
+        Metrics.end(MetricsListener.Phase.SCHEMA_GENERATION, start);
+        Map<String, Generated> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> e : outputs.entrySet()) {
+            result.put(e.getKey(), new Generated(namespaces.get(e.getKey()), e.getValue().toByteArray()));
+        }
+        return result;
+    }
+
+    private static Map<String, String> select(Map<String, String> documentations, String namespace) {
+        Map<String, String> result = new HashMap<>();
+        for (Map.Entry<String, String> e : documentations.entrySet()) {
+            if (ClassGraph.namespace(e.getKey()).equals(namespace)) {
+                result.put(e.getKey(), e.getValue());
+            }
+        }
+        return result;
+    }
+
+    private static class Generated {
+        final String namespace;
+        final byte[] bytes;
+
+        Generated(String namespace, byte[] bytes) {
+            this.namespace = namespace;
+            this.bytes = bytes;
+        }
+    }
+}
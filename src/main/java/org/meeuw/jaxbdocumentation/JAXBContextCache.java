@@ -0,0 +1,113 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+
+/**
+ * Caches {@link JAXBContext} instances per set of classes, since creating them is expensive.
+ * <p>
+ * A {@link JAXBContext} strongly refers to its classes, so it can't simply be put in a static map without pinning class loaders. Therefore the contexts are stored in a {@link ClassValue} of one of the classes (the one with the most specific class loader). They can then be garbage collected together with that class. Per such class the number of cached contexts is bounded ({@link #MAX_SIZE_PER_CLASS}).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class JAXBContextCache {
+
+    public static final int MAX_SIZE_PER_CLASS = 16;
+
+    private static final ClassValue<ClassSetCache<JAXBContext>> CACHES = new ClassValue<>() {
+        @Override
+        protected ClassSetCache<JAXBContext> computeValue(Class<?> type) {
+            return new ClassSetCache<>(MAX_SIZE_PER_CLASS);
+        }
+    };
+
+    private static final AtomicLong hits = new AtomicLong();
+    private static final AtomicLong misses = new AtomicLong();
+
+    private JAXBContextCache() {
+    }
+
+    /**
+     * Returns a (possibly cached) {@link JAXBContext} for the given classes. The order of the classes is not relevant.
+     */
+    public static JAXBContext get(Class<?>... classes) throws JAXBException {
+        if (classes.length == 0) {
+            return newInstance(classes);
+        }
+        ClassSetCache<JAXBContext> cache = CACHES.get(anchor(classes));
+        try {
+            boolean[] created = new boolean[1];
+            JAXBContext result = cache.get(classes, c -> {
+                created[0] = true;
+                try {
+                    return newInstance(c);
+                } catch (JAXBException e) {
+                    throw new WrappedJAXBException(e);
+                }
+            });
+            (created[0] ? misses : hits).incrementAndGet();
+            Metrics.cache(MetricsListener.Cache.JAXB_CONTEXT, !created[0]);
+            return result;
+        } catch (WrappedJAXBException e) {
+            throw (JAXBException) e.getCause();
+        }
+    }
+
+    /**
+     * Removes the cached context for the given classes, e.g. because one of them was redefined.
+     */
+    public static void invalidate(Class<?>... classes) {
+        if (classes.length > 0) {
+            CACHES.get(anchor(classes)).invalidate(classes);
+        }
+    }
+
+    private static JAXBContext newInstance(Class<?>[] classes) throws JAXBException {
+        long start = Metrics.start();
+        JAXBContext context = JAXBContext.newInstance(classes);
+        Metrics.end(MetricsListener.Phase.JAXB_CONTEXT, start);
+        return context;
+    }
+
+    public static long getHits() {
+        return hits.get();
+    }
+
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * The class with the 'deepest' class loader. The JAXBContext can only refer to classes visible from that loader, so storing it there doesn't keep other class loaders alive.
+     */
+    private static Class<?> anchor(Class<?>[] classes) {
+        Class<?> result = classes[0];
+        int resultDepth = depth(result.getClassLoader());
+        for (int i = 1; i < classes.length; i++) {
+            int depth = depth(classes[i].getClassLoader());
+            // the name only matters to make the choice independent of the order of the classes
+            if (depth > resultDepth || (depth == resultDepth && classes[i].getName().compareTo(result.getName()) < 0)) {
+                result = classes[i];
+                resultDepth = depth;
+            }
+        }
+        return result;
+    }
+
+    private static int depth(ClassLoader loader) {
+        int depth = 0;
+        while (loader != null) {
+            depth++;
+            loader = loader.getParent();
+        }
+        return depth;
+    }
+
+    private static class WrappedJAXBException extends RuntimeException {
+        WrappedJAXBException(JAXBException e) {
+            super(e);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package org.meeuw.jaxbdocumentation;
+
+import jdk.jfr.*;
+
+/**
+ * The Java Flight Recorder events of schema generation and annotation. They make this work show up as labelled spans in e.g. JDK Mission Control, next to the (otherwise anonymous) XSLTC and reflection frames. Like all JFR events, they cost next to nothing if not recorded.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class JfrEvents {
+
+    static final String CATEGORY = "JAXB Documentation";
+
+    private JfrEvents() {
+    }
+
+    @Name("org.meeuw.jaxbdocumentation.CreateTransformer")
+    @Label("Create Transformer")
+    @Description("DocumentationAdder creating a transformer (the XSLT is compiled only once)")
+    @Category(CATEGORY)
+    static class CreateTransformer extends Event {
+        @Label("Classes")
+        int classes;
+    }
+
+    @Name("org.meeuw.jaxbdocumentation.CollectDocumentation")
+    @Label("Collect Documentation")
+    @Description("Collecting the documentation of a set of classes")
+    @Category(CATEGORY)
+    static class CollectDocumentation extends Event {
+        @Label("Classes")
+        @Description("The size of the set of classes")
+        int classes;
+
+        @Label("Visited Classes")
+        @Description("The number of classes visited, or 0 if the result was cached")
+        int visited;
+
+        @Label("Documentation Keys")
+        @Description("The number of keys collected, or -1 if they are collected lazily")
+        int documentationKeys;
+
+        @Label("Cache")
+        @Description("HIT, MISS, or DISABLED")
+        String cache;
+    }
+
+    @Name("org.meeuw.jaxbdocumentation.Transform")
+    @Label("Transform")
+    @Description("Adding documentation to the schema of one namespace")
+    @Category(CATEGORY)
+    static class Transform extends Event {
+        @Label("Namespace")
+        @Description("The system id of the schema, which normally is its namespace")
+        String namespace;
+
+        @Label("Engine")
+        String engine;
+
+        @Label("Classes")
+        int classes;
+    }
+
+    @Name("org.meeuw.jaxbdocumentation.SchemaGeneration")
+    @Label("Schema Generation")
+    @Description("Generating the schemas of a set of classes with JAXB")
+    @Category(CATEGORY)
+    static class SchemaGeneration extends Event {
+        @Label("Classes")
+        int classes;
+
+        @Label("Namespaces")
+        int namespaces;
+
+        @Label("Schema Size")
+        @Description("The size of the generated schemas, if they were serialized")
+        @DataAmount
+        long bytes;
+    }
+}
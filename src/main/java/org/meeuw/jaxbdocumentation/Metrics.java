@@ -0,0 +1,61 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.Objects;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Holds the {@link MetricsListener} that is notified by {@link DocumentationAdder}, {@link Utils} and the caches. By default, that is {@link MetricsListener#NOOP}, in which case measuring costs only a volatile read per phase.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class Metrics {
+
+    private static volatile MetricsListener listener = MetricsListener.NOOP;
+
+    private Metrics() {
+    }
+
+    public static MetricsListener getListener() {
+        return listener;
+    }
+
+    public static void setListener(@NonNull MetricsListener listener) {
+        Metrics.listener = Objects.requireNonNull(listener);
+    }
+
+    /**
+     * Sets the listener back to {@link MetricsListener#NOOP}
+     */
+    public static void reset() {
+        listener = MetricsListener.NOOP;
+    }
+
+    /**
+     * @return The start time of a phase to be given to {@link #end(MetricsListener.Phase, long)}. This is {@code 0} if metrics are disabled (so {@link System#nanoTime()} isn't even called).
+     */
+    static long start() {
+        return listener.isEnabled() ? System.nanoTime() : 0;
+    }
+
+    static void end(MetricsListener.Phase phase, long start) {
+        MetricsListener l = listener;
+        if (l.isEnabled()) {
+            l.phase(phase, System.nanoTime() - start);
+        }
+    }
+
+    static void introspected(int classes, int documentationKeys) {
+        MetricsListener l = listener;
+        if (l.isEnabled()) {
+            l.introspected(classes, documentationKeys);
+        }
+    }
+
+    static void cache(MetricsListener.Cache cache, boolean hit) {
+        MetricsListener l = listener;
+        if (l.isEnabled()) {
+            l.cache(cache, hit);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package org.meeuw.jaxbdocumentation;
+
+/**
+ * Receives measurements of the several phases of schema generation and annotation, e.g. to export them to some monitoring system. Register an implementation with {@link Metrics#setListener(MetricsListener)}. See {@link InMemoryMetrics} for a simple implementation.
+ * <p>
+ * Implementations must be thread-safe, and should be fast, since they are called synchronously.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public interface MetricsListener {
+
+    enum Phase {
+        /**
+         * Compiling (or loading the precompiled version of) a stylesheet. This happens only once per stylesheet per {@link XsltEngine} (see {@link TemplatesCache}).
+         */
+        COMPILE,
+        /**
+         * Creating a {@link jakarta.xml.bind.JAXBContext} (only on a miss of {@link JAXBContextCache})
+         */
+        JAXB_CONTEXT,
+        /**
+         * Generating the schemas with JAXB. When streaming with {@link DocumentationAdder.Engine#STAX} (see {@link Utils#writeDocumentationSchemas(DocumentationAdder, jakarta.xml.bind.SchemaOutputResolver)}) this includes adding the documentation.
+         */
+        SCHEMA_GENERATION,
+        /**
+         * Collecting the documentation, by reflection (or from {@link DocumentationIndex})
+         */
+        INTROSPECTION,
+        /**
+         * Presenting the collected documentation as a document to the XSLT (including building the XSLT's tree of it). This happens during (and is included in) {@link #TRANSFORM}.
+         */
+        SERIALIZATION,
+        /**
+         * {@link DocumentationAdder#transform(javax.xml.transform.Source, javax.xml.transform.Result)}, with either engine
+         */
+        TRANSFORM,
+        /**
+         * Rendering a schema to HTML with {@link Xs3pRenderer} (only on a miss of its cache)
+         */
+        HTML
+    }
+
+    enum Cache {
+        /**
+         * {@link JAXBContextCache}
+         */
+        JAXB_CONTEXT,
+        /**
+         * {@link DocumentationAdder#getCache()}, if {@link DocumentationAdder#isUseCache()}
+         */
+        DOCUMENTATION,
+        /**
+         * {@link SchemaCache}
+         */
+        SCHEMA,
+        /**
+         * The rendered pages of {@link Xs3pRenderer}
+         */
+        HTML
+    }
+
+    /**
+     * If this returns {@code false}, nothing is measured, and none of the other methods are called.
+     */
+    default boolean isEnabled() {
+        return true;
+    }
+
+    /**
+     * A phase took the given number of nanoseconds.
+     */
+    default void phase(Phase phase, long nanos) {
+    }
+
+    /**
+     * Documentation was collected (a miss of the {@link Cache#DOCUMENTATION} cache, or no cache was used). If {@link DocumentationAdder#isLazy()}, this happens per type, when it is first looked up.
+     * @param classes The number of classes visited
+     * @param documentationKeys The number of keys collected
+     */
+    default void introspected(int classes, int documentationKeys) {
+    }
+
+    default void cache(Cache cache, boolean hit) {
+    }
+
+    /**
+     * The default listener, which does nothing.
+     */
+    MetricsListener NOOP = new MetricsListener() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public String toString() {
+            return "NOOP";
+        }
+    };
+}
@@ -0,0 +1,140 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.transform.Result;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.sax.TransformerHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.NamespaceSupport;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * SAX version of {@link StaxAnnotator}: a filter that inserts the {@code xs:annotation/xs:documentation} elements in a stream of SAX events of an XSD. This makes it possible to stream the schema generated by JAXB directly to a {@link Result}, without building any trees. Comments it receives (as a {@link LexicalHandler}) are passed on too.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class SaxAnnotator extends XMLFilterImpl implements LexicalHandler {
+
+    private static final Attributes NO_ATTRIBUTES = new AttributesImpl();
+
+    private final Map<String, String> documentations;
+    private final String xmlStyleSheet;
+    private final boolean debug;
+    private final TransformerHandler out;
+
+    private final DocumentationKeys keys = new DocumentationKeys();
+    private final NamespaceSupport namespaces = new NamespaceSupport();
+    private boolean contextPushed = false;
+
+    SaxAnnotator(Map<String, String> documentations, String xmlStyleSheet, boolean debug, Result result) {
+        this.documentations = documentations;
+        this.xmlStyleSheet = xmlStyleSheet;
+        this.debug = debug;
+        try {
+            this.out = TemplatesCache.newIdentityHandler();
+        } catch (TransformerConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+        this.out.setResult(result);
+        setContentHandler(out);
+    }
+
+    @Override
+    public void startPrefixMapping(String prefix, String uri) throws SAXException {
+        if (!contextPushed) {
+            namespaces.pushContext();
+            contextPushed = true;
+        }
+        namespaces.declarePrefix(prefix, uri);
+        super.startPrefixMapping(prefix, uri);
+    }
+
+    @Override
+    public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+        if (!contextPushed) {
+            namespaces.pushContext();
+        }
+        contextPushed = false;
+        if (keys.isSchemaRoot(uri, localName) && xmlStyleSheet != null && !xmlStyleSheet.isEmpty()) {
+            super.processingInstruction("xml-stylesheet", "href=\"xs3p.xsl\" type=\"text/xsl\"");
+        }
+        super.startElement(uri, localName, qName, atts);
+        String key = keys.start(uri, localName, a -> atts.getValue("", a));
+        if (key != null) {
+            annotate(key);
+        }
+    }
+
+    @Override
+    public void endElement(String uri, String localName, String qName) throws SAXException {
+        keys.end();
+        namespaces.popContext();
+        super.endElement(uri, localName, qName);
+    }
+
+    private void annotate(String key) throws SAXException {
+        final String documentation = documentations.get(key);
+        final boolean found = documentation != null && !documentation.isEmpty();
+        if (debug) {
+            char[] comment = ("documentation key: " + key + (found ? "" : " (not found)")).toCharArray();
+            out.comment(comment, 0, comment.length);
+        }
+        if (found) {
+            String prefix = namespaces.getPrefix(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            boolean declare = prefix == null;
+            if (declare) {
+                prefix = "xs";
+                super.startPrefixMapping(prefix, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            }
+            super.startElement(XMLConstants.W3C_XML_SCHEMA_NS_URI, "annotation", prefix + ":annotation", NO_ATTRIBUTES);
+            super.startElement(XMLConstants.W3C_XML_SCHEMA_NS_URI, "documentation", prefix + ":documentation", NO_ATTRIBUTES);
+            char[] chars = documentation.toCharArray();
+            super.characters(chars, 0, chars.length);
+            super.endElement(XMLConstants.W3C_XML_SCHEMA_NS_URI, "documentation", prefix + ":documentation");
+            super.endElement(XMLConstants.W3C_XML_SCHEMA_NS_URI, "annotation", prefix + ":annotation");
+            if (declare) {
+                super.endPrefixMapping(prefix);
+            }
+        }
+    }
+
+    @Override
+    public void comment(char[] ch, int start, int length) throws SAXException {
+        out.comment(ch, start, length);
+    }
+
+    @Override
+    public void startDTD(String name, String publicId, String systemId) throws SAXException {
+        out.startDTD(name, publicId, systemId);
+    }
+
+    @Override
+    public void endDTD() throws SAXException {
+        out.endDTD();
+    }
+
+    @Override
+    public void startEntity(String name) throws SAXException {
+        out.startEntity(name);
+    }
+
+    @Override
+    public void endEntity(String name) throws SAXException {
+        out.endEntity(name);
+    }
+
+    @Override
+    public void startCDATA() throws SAXException {
+        out.startCDATA();
+    }
+
+    @Override
+    public void endCDATA() throws SAXException {
+        out.endCDATA();
+    }
+}
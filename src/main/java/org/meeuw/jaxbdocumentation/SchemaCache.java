@@ -0,0 +1,236 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.transform.TransformerException;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Caches the fully rendered, annotated XSD's per set of classes and namespace, e.g. to serve them over HTTP. A hit involves no XML processing at all, and every schema has a content hash which can be used as an ETag.
+ * <p>
+ * The total size of the cached schemas is bounded by a memory budget; the least recently used class sets are evicted first. Like {@link ClassSetCache} the classes themselves are only weakly referenced.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class SchemaCache {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    private final long maxBytes;
+    private final LinkedHashMap<ClassSetCache.Key, Map<String, Schema>> map = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The engine used to add the documentation.
+     */
+    @Getter
+    @Setter
+    private DocumentationAdder.Engine engine = DocumentationAdder.Engine.XSLT;
+
+    public SchemaCache() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public SchemaCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Returns the annotated schemas for the given classes, per namespace. They are generated if not cached yet.
+     */
+    public Map<String, Schema> get(Class<?>... classes) throws JAXBException, IOException, TransformerException {
+        final ClassSetCache.Key key = new ClassSetCache.Key(classes);
+        synchronized (map) {
+            Map<String, Schema> schemas = map.get(key);
+            if (schemas != null) {
+                hits.incrementAndGet();
+                Metrics.cache(MetricsListener.Cache.SCHEMA, true);
+                return schemas;
+            }
+        }
+        misses.incrementAndGet();
+        Metrics.cache(MetricsListener.Cache.SCHEMA, false);
+        Map<String, Schema> created = generate(classes);
+        synchronized (map) {
+            Map<String, Schema> existing = map.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing;
+            }
+            bytes += size(created);
+            evict();
+            return created;
+        }
+    }
+
+    /**
+     * Returns the annotated schema for the given classes and namespace.
+     * @return The schema, or {@code null} if there is no schema for the namespace
+     */
+    public Schema get(String namespace, Class<?>... classes) throws JAXBException, IOException, TransformerException {
+        return get(classes).get(namespace);
+    }
+
+    /**
+     * Removes the schemas for the given set of classes.
+     */
+    public void invalidate(Class<?>... classes) {
+        synchronized (map) {
+            Map<String, Schema> removed = map.remove(new ClassSetCache.Key(classes));
+            if (removed != null) {
+                bytes -= size(removed);
+            }
+        }
+    }
+
+    /**
+     * Removes all cached schemas.
+     */
+    public void invalidateAll() {
+        synchronized (map) {
+            map.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return The total number of bytes of the currently cached schemas
+     */
+    public long getBytes() {
+        synchronized (map) {
+            return bytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "SchemaCache{bytes=" + getBytes() + ", maxBytes=" + maxBytes + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    protected Map<String, Schema> generate(Class<?>... classes) throws JAXBException, IOException, TransformerException {
+        DocumentationAdder adder = new DocumentationAdder(classes);
+        adder.setUseCache(true);
+        adder.setEngine(engine);
+        final Map<String, ByteArrayOutputStream> outputs = new TreeMap<>();
+        Utils.writeDocumentationSchemas(adder, ns -> outputs.computeIfAbsent(ns, k -> new ByteArrayOutputStream()));
+        Map<String, Schema> result = new LinkedHashMap<>();
+        for (Map.Entry<String, ByteArrayOutputStream> e : outputs.entrySet()) {
+            result.put(e.getKey(), new Schema(e.getKey(), e.getValue().toByteArray()));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<ClassSetCache.Key, Map<String, Schema>>> i = map.entrySet().iterator();
+        while (i.hasNext()) {
+            Map.Entry<ClassSetCache.Key, Map<String, Schema>> e = i.next();
+            // always keep the most recent one, even if it exceeds the budget on its own
+            if (e.getKey().isCollected() || (bytes > maxBytes && map.size() > 1)) {
+                i.remove();
+                bytes -= size(e.getValue());
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static long size(Map<String, Schema> schemas) {
+        long size = 0;
+        for (Schema schema : schemas.values()) {
+            size += schema.bytes.length;
+        }
+        return size;
+    }
+
+    /**
+     * A rendered, annotated XSD.
+     */
+    public static class Schema {
+        @Getter
+        private final String namespace;
+        private final byte[] bytes;
+        @Getter
+        private final String hash;
+
+        Schema(String namespace, byte[] bytes) {
+            this.namespace = namespace;
+            this.bytes = bytes;
+            this.hash = sha256(bytes);
+        }
+
+        /**
+         * @return The UTF-8 encoded XSD. This is the cached array itself, and must not be modified.
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        /**
+         * @return The UTF-8 encoded XSD as a read-only buffer
+         */
+        public ByteBuffer asByteBuffer() {
+            return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+
+        /**
+         * @return A strong ETag (a quoted SHA-256 of the contents)
+         */
+        public String getETag() {
+            return "\"" + hash + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return namespace + " (" + bytes.length + " bytes, " + hash + ")";
+        }
+
+        /**
+         * @return The SHA-256 hash of the given bytes, in hexadecimal, as used for {@link #getHash()}
+         * @since 0.6
+         */
+        public static String sha256(byte[] bytes) {
+            try {
+                byte[] digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+                StringBuilder result = new StringBuilder(digest.length * 2);
+                for (byte b : digest) {
+                    result.append(Character.forDigit((b >> 4) & 0xf, 16));
+                    result.append(Character.forDigit(b & 0xf, 16));
+                }
+                return result.toString();
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,272 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.*;
+import java.util.function.Function;
+import javax.xml.transform.*;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXSource;
+import javax.xml.transform.sax.TransformerHandler;
+import org.xml.sax.Attributes;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.ext.LexicalHandler;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Applies several transformations to an XSD in one pass: the schema is read once, the stages pass SAX events to each other, and the result is written once. Using {@link DocumentationAdder} and {@link UpdateTypes} one after the other would serialize and parse every schema in between.
+ * <p>
+ * Every stage reads the events of the previous one via a {@link SAXSource} (rather than chaining {@link javax.xml.transform.sax.TransformerHandler}s, which in XSLTC mix up the input with the documents loaded by {@code document()}).
+ * <pre>{@code
+ * SchemaPipeline pipeline = SchemaPipeline.builder()
+ *     .constraints(new UpdateTypes(A.class))
+ *     .documentation(new DocumentationAdder(A.class))
+ *     .xmlStyleSheet("xs3p.xsl")
+ *     .build();
+ * pipeline.transformAll(Utils.schemaSources(A.class), ns -> new StreamResult(...));
+ * }</pre>
+ * The stages are applied in the order they are added. A pipeline is immutable, and can be used by several threads at once.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class SchemaPipeline {
+
+    private final List<Stage> stages;
+
+    private SchemaPipeline(List<Stage> stages) {
+        this.stages = Collections.unmodifiableList(new ArrayList<>(stages));
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Transforms one schema.
+     */
+    public void transform(Source source, Result result) throws TransformerException {
+        JfrEvents.Transform event = new JfrEvents.Transform();
+        event.begin();
+        long start = Metrics.start();
+        Source input = source;
+        for (int i = 0; i < stages.size() - 1; i++) {
+            input = new SAXSource(new StageReader(stages.get(i), input), new InputSource(source.getSystemId()));
+        }
+        Stage last = stages.isEmpty() ? SchemaPipeline::copy : stages.get(stages.size() - 1);
+        last.transform(input, result);
+        Metrics.end(MetricsListener.Phase.TRANSFORM, start);
+        if (event.shouldCommit()) {
+            event.namespace = source.getSystemId();
+            event.engine = "PIPELINE";
+            event.commit();
+        }
+    }
+
+    /**
+     * Transforms several schemas (e.g. the result of {@link Utils#schemaSources(Class[])}).
+     * @param results Creates the result for a namespace
+     * @return The results, in the same iteration order as the sources
+     */
+    public <R extends Result> Map<String, R> transformAll(Map<String, Source> sources, Function<String, R> results) throws TransformerException {
+        Map<String, R> transformed = new LinkedHashMap<>();
+        for (Map.Entry<String, Source> source : sources.entrySet()) {
+            R result = results.apply(source.getKey());
+            transform(source.getValue(), result);
+            transformed.put(source.getKey(), result);
+        }
+        return transformed;
+    }
+
+    static SAXResult toResult(ContentHandler handler) {
+        SAXResult result = new SAXResult(handler);
+        if (handler instanceof LexicalHandler) {
+            result.setLexicalHandler((LexicalHandler) handler);
+        }
+        return result;
+    }
+
+    private static void copy(Source source, Result result) throws TransformerException {
+        TemplatesCache.newIdentityHandler().getTransformer().transform(source, result);
+    }
+
+    /**
+     * One stage of the pipeline.
+     */
+    @FunctionalInterface
+    interface Stage {
+        void transform(Source source, Result result) throws TransformerException;
+    }
+
+    /**
+     * Produces the events of a stage, when it is parsed by the next one.
+     */
+    private static class StageReader extends XMLFilterImpl {
+        private static final String LEXICAL_HANDLER = "http://xml.org/sax/properties/lexical-handler";
+
+        private final Stage stage;
+        private final Source source;
+        private Object lexicalHandler;
+
+        private StageReader(Stage stage, Source source) {
+            this.stage = stage;
+            this.source = source;
+        }
+
+        @Override
+        public void parse(InputSource input) throws SAXException {
+            SAXResult result = new SAXResult(getContentHandler());
+            if (lexicalHandler instanceof LexicalHandler) {
+                result.setLexicalHandler((LexicalHandler) lexicalHandler);
+            }
+            try {
+                stage.transform(source, result);
+            } catch (TransformerException e) {
+                throw new SAXException(e);
+            }
+        }
+
+        @Override
+        public void parse(String systemId) throws SAXException {
+            parse(new InputSource(systemId));
+        }
+
+        @Override
+        public boolean getFeature(String name) {
+            return "http://xml.org/sax/features/namespaces".equals(name);
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) {
+            // the events are always the same
+        }
+
+        @Override
+        public Object getProperty(String name) {
+            return LEXICAL_HANDLER.equals(name) ? lexicalHandler : null;
+        }
+
+        @Override
+        public void setProperty(String name, Object value) {
+            if (LEXICAL_HANDLER.equals(name)) {
+                lexicalHandler = value;
+            }
+        }
+    }
+
+    public static class Builder {
+        private final List<Stage> stages = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds the documentation, as {@link DocumentationAdder#transform(Source, Result)} would, with the engine of the adder. The {@link DocumentationAdder#getXmlStyleSheet()} of the adder is ignored, see {@link #xmlStyleSheet(String)}.
+         */
+        public Builder documentation(DocumentationAdder adder) {
+            stages.add(adder::transformStage);
+            return this;
+        }
+
+        /**
+         * Adds the Bean Validation constraints as facets, as {@link UpdateTypes} would.
+         */
+        public Builder constraints(UpdateTypes updateTypes) {
+            stages.add((source, result) -> updateTypes.newTransformer().transform(source, result));
+            return this;
+        }
+
+        /**
+         * Adds an {@code xml-stylesheet} processing instruction to the schema, referring to the given XSLT (e.g. {@code xs3p.xsl}), so browsers can render it.
+         */
+        public Builder xmlStyleSheet(String href) {
+            stages.add((source, result) -> copy(source, toResult(new StyleSheetFilter(href, result))));
+            return this;
+        }
+
+        public SchemaPipeline build() {
+            return new SchemaPipeline(stages);
+        }
+    }
+
+    /**
+     * Inserts the {@code xml-stylesheet} processing instruction before the root element.
+     */
+    private static class StyleSheetFilter extends XMLFilterImpl implements LexicalHandler {
+        private final String data;
+        private final LexicalHandler lexicalHandler;
+        private boolean root = true;
+
+        StyleSheetFilter(String href, Result result) throws TransformerConfigurationException {
+            this.data = "href=\"" + href + "\" type=\"text/xsl\"";
+            if (result instanceof SAXResult) {
+                SAXResult saxResult = (SAXResult) result;
+                setContentHandler(saxResult.getHandler());
+                this.lexicalHandler = saxResult.getLexicalHandler();
+            } else {
+                TransformerHandler out = TemplatesCache.newIdentityHandler();
+                out.setResult(result);
+                setContentHandler(out);
+                this.lexicalHandler = out;
+            }
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes atts) throws SAXException {
+            if (root) {
+                root = false;
+                super.processingInstruction("xml-stylesheet", data);
+            }
+            super.startElement(uri, localName, qName, atts);
+        }
+
+        @Override
+        public void comment(char[] ch, int start, int length) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.comment(ch, start, length);
+            }
+        }
+
+        @Override
+        public void startDTD(String name, String publicId, String systemId) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startDTD(name, publicId, systemId);
+            }
+        }
+
+        @Override
+        public void endDTD() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endDTD();
+            }
+        }
+
+        @Override
+        public void startEntity(String name) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startEntity(name);
+            }
+        }
+
+        @Override
+        public void endEntity(String name) throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endEntity(name);
+            }
+        }
+
+        @Override
+        public void startCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.startCDATA();
+            }
+        }
+
+        @Override
+        public void endCDATA() throws SAXException {
+            if (lexicalHandler != null) {
+                lexicalHandler.endCDATA();
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.Map;
+import javax.xml.XMLConstants;
+import javax.xml.stream.*;
+import javax.xml.transform.*;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.stax.StAXResult;
+import javax.xml.transform.stax.StAXSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+/**
+ * Streaming, XSLT-free implementation of {@code add-documentation.xslt}. It copies an XSD from an {@link XMLStreamReader} to an {@link XMLStreamWriter}, and inserts the {@code xs:annotation/xs:documentation} elements on the fly, keeping only a stack of the enclosing type names in memory (see {@link DocumentationKeys}).
+ * <p>
+ * The stylesheet remains the reference implementation, this should produce equivalent XML.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ * @see DocumentationAdder.Engine#STAX
+ */
+class StaxAnnotator {
+
+    private static final XMLInputFactory INPUT_FACTORY = XMLInputFactory.newInstance();
+    private static final XMLOutputFactory OUTPUT_FACTORY = XMLOutputFactory.newInstance();
+
+    static {
+        INPUT_FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        INPUT_FACTORY.setProperty(XMLInputFactory.IS_COALESCING, true);
+    }
+
+    private final Map<String, String> documentations;
+    private final String xmlStyleSheet;
+    private final boolean debug;
+
+    StaxAnnotator(Map<String, String> documentations, String xmlStyleSheet, boolean debug) {
+        this.documentations = documentations;
+        this.xmlStyleSheet = xmlStyleSheet;
+        this.debug = debug;
+    }
+
+    void transform(Source source, Result result) throws TransformerException {
+        try {
+            XMLStreamWriter writer = isReadable(source) ? createWriter(result) : null;
+            if (writer == null) {
+                // StAX cannot read e.g. a DOMSource, or write to a SAXResult, directly. The SAX version then streams it in stead.
+                TemplatesCache.newIdentityHandler().getTransformer()
+                    .transform(source, SchemaPipeline.toResult(new SaxAnnotator(documentations, xmlStyleSheet, debug, result)));
+                return;
+            }
+            XMLStreamReader reader = createReader(source);
+            try {
+                copy(reader, writer);
+                writer.close();
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException e) {
+            throw new TransformerException(e);
+        }
+    }
+
+    private static boolean isReadable(Source source) {
+        return source instanceof StreamSource || (source instanceof StAXSource && ((StAXSource) source).getXMLStreamReader() != null);
+    }
+
+    private static XMLStreamReader createReader(Source source) throws XMLStreamException {
+        if (source instanceof StAXSource) {
+            return ((StAXSource) source).getXMLStreamReader();
+        }
+        // the factories are not guaranteed to be thread-safe
+        synchronized (INPUT_FACTORY) {
+            return INPUT_FACTORY.createXMLStreamReader(source);
+        }
+    }
+
+    private static XMLStreamWriter createWriter(Result result) throws XMLStreamException {
+        if (result instanceof StAXResult && ((StAXResult) result).getXMLStreamWriter() != null) {
+            return ((StAXResult) result).getXMLStreamWriter();
+        }
+        synchronized (OUTPUT_FACTORY) {
+            if (result instanceof StreamResult) {
+                StreamResult streamResult = (StreamResult) result;
+                if (streamResult.getWriter() != null) {
+                    return OUTPUT_FACTORY.createXMLStreamWriter(streamResult.getWriter());
+                }
+                if (streamResult.getOutputStream() != null) {
+                    return OUTPUT_FACTORY.createXMLStreamWriter(streamResult.getOutputStream(), "UTF-8");
+                }
+            }
+            if (result instanceof DOMResult) {
+                return OUTPUT_FACTORY.createXMLStreamWriter(result);
+            }
+            return null;
+        }
+    }
+
+    private void copy(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        final DocumentationKeys keys = new DocumentationKeys();
+        writer.writeStartDocument("UTF-8", "1.0");
+        while (reader.hasNext()) {
+            switch (reader.next()) {
+                case XMLStreamConstants.START_ELEMENT: {
+                    if (keys.isSchemaRoot(reader.getNamespaceURI(), reader.getLocalName()) && xmlStyleSheet != null && !xmlStyleSheet.isEmpty()) {
+                        writer.writeProcessingInstruction("xml-stylesheet", "href=\"xs3p.xsl\" type=\"text/xsl\"");
+                    }
+                    copyStartElement(reader, writer);
+                    String key = keys.start(reader.getNamespaceURI(), reader.getLocalName(), a -> reader.getAttributeValue(null, a));
+                    if (key != null) {
+                        annotate(reader, writer, key);
+                    }
+                    break;
+                }
+                case XMLStreamConstants.END_ELEMENT:
+                    keys.end();
+                    writer.writeEndElement();
+                    break;
+                case XMLStreamConstants.CHARACTERS:
+                case XMLStreamConstants.SPACE:
+                    if (keys.isInDocument()) {
+                        writer.writeCharacters(reader.getTextCharacters(), reader.getTextStart(), reader.getTextLength());
+                    }
+                    break;
+                case XMLStreamConstants.CDATA:
+                    writer.writeCData(reader.getText());
+                    break;
+                case XMLStreamConstants.COMMENT:
+                    writer.writeComment(reader.getText());
+                    break;
+                case XMLStreamConstants.PROCESSING_INSTRUCTION:
+                    writer.writeProcessingInstruction(reader.getPITarget(), valueOf(reader.getPIData()));
+                    break;
+                default:
+                    // DTD, END_DOCUMENT
+            }
+        }
+        writer.writeEndDocument();
+        writer.flush();
+    }
+
+    private static void copyStartElement(XMLStreamReader reader, XMLStreamWriter writer) throws XMLStreamException {
+        writer.writeStartElement(valueOf(reader.getPrefix()), reader.getLocalName(), valueOf(reader.getNamespaceURI()));
+        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+            String prefix = reader.getNamespacePrefix(i);
+            if (prefix == null || prefix.isEmpty()) {
+                writer.writeDefaultNamespace(valueOf(reader.getNamespaceURI(i)));
+            } else {
+                writer.writeNamespace(prefix, valueOf(reader.getNamespaceURI(i)));
+            }
+        }
+        for (int i = 0; i < reader.getAttributeCount(); i++) {
+            String prefix = reader.getAttributePrefix(i);
+            if (prefix == null || prefix.isEmpty()) {
+                writer.writeAttribute(reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            } else {
+                writer.writeAttribute(prefix, reader.getAttributeNamespace(i), reader.getAttributeLocalName(i), reader.getAttributeValue(i));
+            }
+        }
+    }
+
+    private void annotate(XMLStreamReader reader, XMLStreamWriter writer, String key) throws XMLStreamException {
+        final String documentation = documentations.get(key);
+        final boolean found = documentation != null && !documentation.isEmpty();
+        if (debug) {
+            writer.writeComment("documentation key: " + key + (found ? "" : " (not found)"));
+        }
+        if (found) {
+            String prefix = reader.getNamespaceContext().getPrefix(XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            boolean declare = prefix == null;
+            if (declare) {
+                prefix = "xs";
+            }
+            writer.writeStartElement(prefix, "annotation", XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            if (declare) {
+                writer.writeNamespace(prefix, XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            }
+            writer.writeStartElement(prefix, "documentation", XMLConstants.W3C_XML_SCHEMA_NS_URI);
+            writer.writeCharacters(documentation);
+            writer.writeEndElement();
+            writer.writeEndElement();
+        }
+    }
+
+    private static String valueOf(String value) {
+        return DocumentationKeys.valueOf(value);
+    }
+}
@@ -0,0 +1,136 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * Process-wide registry of compiled stylesheets. Compiling an XSLT is by far the most expensive part of creating a {@link javax.xml.transform.Transformer}, and {@link Templates} are thread-safe, so every stylesheet is compiled only once per {@link TransformerFactory} (or per {@link XsltEngine}).
+ * <p>
+ * The templates of only the {@link #MAX_FACTORIES} most recently used factories and engines are kept. The templates refer to the factory that compiled them, so the factories can't be weakly referenced; this way creating a new factory per adder doesn't make this cache grow without bound (but it doesn't make it effective either).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class TemplatesCache {
+
+    /**
+     * The maximal number of factories (and engines) for which the compiled stylesheets are cached
+     */
+    public static final int MAX_FACTORIES = 16;
+
+    private static final Map<Object, Map<String, Templates>> CACHE = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Map<String, Templates>> eldest) {
+            return size() > MAX_FACTORIES;
+        }
+    });
+
+    private static volatile XsltEngine defaultEngine;
+
+    private TemplatesCache() {
+    }
+
+    /**
+     * @return The engine used when no factory is specified explicitly. This is lazily determined, as described at {@link XsltEngine}.
+     */
+    public static XsltEngine getDefaultEngine() {
+        XsltEngine result = defaultEngine;
+        if (result == null) {
+            synchronized (TemplatesCache.class) {
+                result = defaultEngine;
+                if (result == null) {
+                    result = ServiceLoader.load(XsltEngine.class).findFirst().orElseGet(() -> XsltEngine.of(newDefaultFactory()));
+                    defaultEngine = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @param engine The engine to use when no factory is specified explicitly, or {@code null} to determine it again
+     */
+    public static void setDefaultEngine(@Nullable XsltEngine engine) {
+        synchronized (TemplatesCache.class) {
+            defaultEngine = engine;
+        }
+    }
+
+    /**
+     * @return The factory used when none is specified explicitly, that of the {@link #getDefaultEngine() default engine}
+     */
+    public static TransformerFactory getDefaultFactory() {
+        return getDefaultEngine().getTransformerFactory();
+    }
+
+    /**
+     * Returns the compiled version of the given classpath resource, using the default factory.
+     * @param resource The absolute classpath resource of the XSLT (e.g. {@code /add-documentation.xslt})
+     * @see #get(TransformerFactory, String)
+     */
+    public static Templates get(@NonNull String resource) {
+        return get(getDefaultEngine(), resource);
+    }
+
+    /**
+     * Returns the compiled version of the given classpath resource. It is compiled with the given factory the first time it is requested for that factory.
+     * @param factory The factory to use. If {@code null}, {@link #getDefaultFactory()}
+     * @param resource The absolute classpath resource of the XSLT (e.g. {@code /add-documentation.xslt})
+     */
+    public static Templates get(@Nullable TransformerFactory factory, @NonNull String resource) {
+        final XsltEngine engine = getDefaultEngine();
+        if (factory == null || factory == engine.getTransformerFactory()) {
+            return get(engine, resource);
+        }
+        final Map<String, Templates> templates = CACHE.computeIfAbsent(factory, k -> new ConcurrentHashMap<>());
+        return templates.computeIfAbsent(resource, r -> compile(() -> factory, r));
+    }
+
+    /**
+     * Returns the compiled version of the given classpath resource, as provided by the given engine the first time it is requested for that engine.
+     * @param resource The absolute classpath resource of the XSLT (e.g. {@code /add-documentation.xslt})
+     * @since 0.6
+     */
+    public static Templates get(@NonNull XsltEngine engine, @NonNull String resource) {
+        final Map<String, Templates> templates = CACHE.computeIfAbsent(engine, k -> new ConcurrentHashMap<>());
+        return templates.computeIfAbsent(resource, r -> compile(engine, r));
+    }
+
+    /**
+     * @return The JDK's own {@link TransformerFactory}, unless one is configured explicitly with the system property {@code javax.xml.transform.TransformerFactory}. So just having another implementation on the class path (like Xalan, which is an optional dependency for {@link TransletEngine}) doesn't silently change it.
+     */
+    static TransformerFactory newDefaultFactory() {
+        if (System.getProperty(TransformerFactory.class.getName()) != null) {
+            return TransformerFactory.newInstance();
+        }
+        return TransformerFactory.newDefaultInstance();
+    }
+
+    /**
+     * @return A {@link TransformerHandler} of the {@link #getDefaultFactory() default factory} which just copies the SAX events it receives to its {@link javax.xml.transform.Result}
+     */
+    static TransformerHandler newIdentityHandler() throws TransformerConfigurationException {
+        final SAXTransformerFactory factory = (SAXTransformerFactory) getDefaultFactory();
+        synchronized (factory) {
+            return factory.newTransformerHandler();
+        }
+    }
+
+    private static Templates compile(XsltEngine engine, String resource) {
+        long start = Metrics.start();
+        try {
+            return engine.newTemplates(resource);
+        } catch (TransformerConfigurationException e) {
+            throw new RuntimeException(e);
+        } finally {
+            Metrics.end(MetricsListener.Phase.COMPILE, start);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import lombok.extern.java.Log;
+import org.checkerframework.checker.nullness.qual.NonNull;
+import org.checkerframework.checker.nullness.qual.Nullable;
+
+/**
+ * An {@link XsltEngine} using the translets of the stylesheets as compiled at build time (by {@link #main(String[])}, they are packaged in the jar). A new JVM then doesn't need to compile the stylesheets to bytecode (which e.g. for {@code xs3p.xsl} takes about a second).
+ * <p>
+ * This needs Apache Xalan's XSLTC ({@code xalan:xalan} and {@code xalan:serializer}, which are optional dependencies), since that one can load translets from the class path. It is not the default engine; it can be set with {@link TemplatesCache#setDefaultEngine(XsltEngine)} or registered via {@link java.util.ServiceLoader}. The name of a translet contains a hash of its stylesheet, so a stylesheet that changed since it was precompiled is not used. A stylesheet that is not precompiled, or that can't be loaded for whatever reason, is just compiled.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@Log
+public class TransletEngine implements XsltEngine {
+
+    /**
+     * The class name of Xalan's XSLTC {@link TransformerFactory}
+     */
+    public static final String XSLTC = "org.apache.xalan.xsltc.trax.TransformerFactoryImpl";
+
+    /**
+     * The package of the precompiled translets
+     */
+    public static final String PACKAGE = "org.meeuw.jaxbdocumentation.translets";
+
+    /**
+     * The stylesheets which are precompiled by {@link #main(String[])} by default
+     */
+    public static final List<String> STYLESHEETS = Collections.unmodifiableList(Arrays.asList(
+        "/add-documentation.xslt",
+        "/update-types.xslt",
+        Xs3pRenderer.XS3P,
+        Xs3pRenderer.XS3P_LINKS
+    ));
+
+    private final TransformerFactory transformerFactory = newFactory();
+    private final TransformerFactory translets = newFactory();
+    private final ClassLoader classLoader;
+    private final String packageName;
+
+    private final AtomicInteger precompiled = new AtomicInteger();
+    private final AtomicInteger compiled = new AtomicInteger();
+
+    /**
+     * @throws javax.xml.transform.TransformerFactoryConfigurationError If Xalan is not available
+     */
+    public TransletEngine() {
+        this(TransletEngine.class.getClassLoader());
+    }
+
+    /**
+     * @param classLoader To find the precompiled translets with
+     */
+    public TransletEngine(@NonNull ClassLoader classLoader) {
+        this(classLoader, PACKAGE);
+    }
+
+    TransletEngine(@NonNull ClassLoader classLoader, @NonNull String packageName) {
+        this.classLoader = classLoader;
+        this.packageName = packageName;
+        translets.setAttribute("use-classpath", Boolean.TRUE);
+    }
+
+    @Override
+    public TransformerFactory getTransformerFactory() {
+        return transformerFactory;
+    }
+
+    @Override
+    public Templates newTemplates(@NonNull String resource) throws TransformerConfigurationException {
+        Templates templates = load(resource);
+        if (templates != null) {
+            precompiled.incrementAndGet();
+            return templates;
+        }
+        compiled.incrementAndGet();
+        return XsltEngine.compile(transformerFactory, resource);
+    }
+
+    /**
+     * @return The number of stylesheets that were loaded precompiled
+     */
+    public int getPrecompiled() {
+        return precompiled.get();
+    }
+
+    /**
+     * @return The number of stylesheets that had to be compiled
+     */
+    public int getCompiled() {
+        return compiled.get();
+    }
+
+    @Override
+    public String toString() {
+        return "TransletEngine{precompiled=" + precompiled + ", compiled=" + compiled + "}";
+    }
+
+    @Nullable
+    private Templates load(String resource) {
+        final URL url = url(resource);
+        final Thread thread = Thread.currentThread();
+        // TransformerFactory itself is not thread-safe, and XSLTC finds the translets with the context class loader
+        synchronized (translets) {
+            final ClassLoader contextClassLoader = thread.getContextClassLoader();
+            try {
+                thread.setContextClassLoader(classLoader);
+                translets.setAttribute("package-name", packageName);
+                translets.setAttribute("translet-name", transletName(resource));
+                return translets.newTemplates(new StreamSource(url.toExternalForm()));
+            } catch (TransformerConfigurationException | RuntimeException | LinkageError | IOException e) {
+                log.log(Level.FINE, "No precompiled translet for " + resource + ": " + e.getMessage());
+                return null;
+            } finally {
+                thread.setContextClassLoader(contextClassLoader);
+            }
+        }
+    }
+
+    /**
+     * @return The name of the translet of the given stylesheet, which is based on its file name and its contents
+     */
+    static String transletName(String resource) throws IOException {
+        String name = resource.substring(resource.lastIndexOf('/') + 1).replaceAll("[^A-Za-z0-9]", "_");
+        try (InputStream in = url(resource).openStream()) {
+            return name + "_" + SchemaCache.Schema.sha256(in.readAllBytes()).substring(0, 12);
+        }
+    }
+
+    private static URL url(String resource) {
+        URL url = TransletEngine.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalArgumentException("No such resource " + resource);
+        }
+        return url;
+    }
+
+    private static TransformerFactory newFactory() {
+        return TransformerFactory.newInstance(XSLTC, TransletEngine.class.getClassLoader());
+    }
+
+    /**
+     * Compiles the given stylesheet with Xalan's XSLTC, and writes the translet classes to the given directory (which would be packaged in the jar).
+     * @return The file of the main class of the translet
+     */
+    public static Path precompile(@NonNull Path directory, @NonNull String resource) throws TransformerConfigurationException, IOException {
+        return precompile(directory, PACKAGE, resource);
+    }
+
+    static Path precompile(@NonNull Path directory, @NonNull String packageName, @NonNull String resource) throws TransformerConfigurationException, IOException {
+        TransformerFactory factory = newFactory();
+        String name = transletName(resource);
+        factory.setAttribute("generate-translet", Boolean.TRUE);
+        factory.setAttribute("destination-directory", directory.toString());
+        factory.setAttribute("package-name", packageName);
+        factory.setAttribute("translet-name", name);
+        factory.newTemplates(new StreamSource(url(resource).toExternalForm()));
+        return directory.resolve(packageName.replace('.', '/')).resolve(name + ".class");
+    }
+
+    /**
+     * Precompiles stylesheets at build time.
+     * <p>
+     * Usage: {@code TransletEngine <output directory> [<resource>...]}, where the resources default to {@link #STYLESHEETS}.
+     */
+    public static void main(String[] args) throws TransformerConfigurationException, IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: TransletEngine <output directory> [<resource>...]");
+            System.exit(1);
+        }
+        Path directory = Paths.get(args[0]);
+        List<String> resources = args.length > 1 ? Arrays.asList(args).subList(1, args.length) : STYLESHEETS;
+        for (String resource : resources) {
+            System.out.println("Precompiled " + resource + " to " + precompile(directory, resource));
+        }
+    }
+}
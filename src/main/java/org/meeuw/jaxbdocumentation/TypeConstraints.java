@@ -0,0 +1,350 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.lang.reflect.*;
+import java.math.BigInteger;
+import java.util.*;
+import jakarta.validation.constraints.*;
+import jakarta.xml.bind.annotation.XmlAttribute;
+import jakarta.xml.bind.annotation.XmlElement;
+import jakarta.xml.bind.annotation.XmlTransient;
+import javax.xml.transform.Source;
+import javax.xml.transform.sax.SAXSource;
+import lombok.extern.java.Log;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.xml.sax.ContentHandler;
+import org.xml.sax.InputSource;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.AttributesImpl;
+import org.xml.sax.helpers.XMLFilterImpl;
+
+/**
+ * Collects the Bean Validation constraints ({@link Pattern}, {@link Size}, {@link Min}, {@link Max}, {@link Digits} and {@link NotNull}) of a set of classes, for {@link UpdateTypes}. They are keyed like the documentation of {@link DocumentationAdder} (e.g. {@code {ns}type|ATTRIBUTE|name}), and presented to {@code update-types.xslt} as a document:
+ * <pre>{@code
+ * <constraints>
+ *   <constraint key="{ns}type|ELEMENT|name" minOccurs="1">
+ *     <pattern value="[a-z]+"/>
+ *     <maxLength value="10"/>
+ *   </constraint>
+ * </constraints>
+ * }</pre>
+ * The children are XSD facets, the attributes (other than {@code key}) are to be set on the {@code xs:element} or {@code xs:attribute}.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@Log
+class TypeConstraints {
+
+    static final String URI = "http://meeuw.org/type-constraints";
+
+    /**
+     * The constraints of one class (including those of its {@link XmlTransient} super classes), so reflection happens only once per class.
+     */
+    private static final ClassValue<Map<String, Constraint>> CONSTRAINTS = new ClassValue<>() {
+        @Override
+        protected Map<String, Constraint> computeValue(Class<?> type) {
+            return Collections.unmodifiableMap(introspect(type));
+        }
+    };
+
+    private TypeConstraints() {
+    }
+
+    /**
+     * @return The constraints of all classes reachable from the given ones, per key
+     */
+    static Map<String, Constraint> collect(Class<?>... classes) {
+        final Map<String, Constraint> result = new LinkedHashMap<>();
+        DocumentationAdder.walk(classes, new HashSet<>(), clazz -> {
+            result.putAll(CONSTRAINTS.get(clazz));
+            return DocumentationAdder.references(clazz);
+        });
+        return Collections.unmodifiableMap(result);
+    }
+
+    static Source toDocument(Map<String, Constraint> constraints) {
+        return new SAXSource(new ConstraintsReader(constraints), new InputSource(URI));
+    }
+
+    private static Map<String, Constraint> introspect(Class<?> clazz) {
+        final Map<String, Constraint> result = new LinkedHashMap<>();
+        final String parent = DocumentationAdder.defaultName(clazz);
+        Class<?> c = clazz;
+        do {
+            for (Field field : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(field.getModifiers())) {
+                    handle(parent, field, field.getName(), field.getType(), result);
+                }
+            }
+            for (Method method : c.getDeclaredMethods()) {
+                if (!Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == 0 && method.getReturnType() != void.class) {
+                    handle(parent, method, propertyName(method.getName()), method.getReturnType(), result);
+                }
+            }
+            c = c.getSuperclass();
+        } while (c != null && c.getAnnotation(XmlTransient.class) != null);
+        return result;
+    }
+
+    private static void handle(String parent, AccessibleObject member, String name, Class<?> type, Map<String, Constraint> result) {
+        if (member.getAnnotation(XmlTransient.class) != null) {
+            return;
+        }
+        final XmlAttribute attribute = member.getAnnotation(XmlAttribute.class);
+        final boolean multiple = Collection.class.isAssignableFrom(type) || (type.isArray() && type != byte[].class);
+        final Constraint constraint = new Constraint();
+
+        final NotNull notNull = member.getAnnotation(NotNull.class);
+        if (notNull != null) {
+            if (attribute != null) {
+                constraint.attributes.put("use", "required");
+            } else if (!multiple) {
+                constraint.attributes.put("minOccurs", "1");
+            }
+        }
+        final Size size = member.getAnnotation(Size.class);
+        if (size != null) {
+            String min = multiple ? "minOccurs" : "minLength";
+            String max = multiple ? "maxOccurs" : "maxLength";
+            if (size.min() > 0) {
+                constraint.put(multiple, min, String.valueOf(size.min()));
+            }
+            if (size.max() < Integer.MAX_VALUE) {
+                constraint.put(multiple, max, String.valueOf(size.max()));
+            }
+        }
+        if (!multiple) {
+            final Pattern pattern = member.getAnnotation(Pattern.class);
+            if (pattern != null) {
+                // flags (like case insensitivity) can't be expressed in XSD
+                final String xsdPattern = pattern.flags().length == 0 ? xsdPattern(pattern.regexp()) : null;
+                if (xsdPattern != null) {
+                    constraint.facets.put("pattern", xsdPattern);
+                } else {
+                    log.warning("No pattern facet for " + member + ", since " + pattern.regexp() + (pattern.flags().length == 0 ? "" : " " + Arrays.toString(pattern.flags())) + " can't be expressed as an XSD regular expression");
+                }
+            }
+            final Min min = member.getAnnotation(Min.class);
+            if (min != null) {
+                constraint.facets.put("minInclusive", String.valueOf(min.value()));
+            }
+            final Max max = member.getAnnotation(Max.class);
+            if (max != null) {
+                constraint.facets.put("maxInclusive", String.valueOf(max.value()));
+            }
+            final Digits digits = member.getAnnotation(Digits.class);
+            if (digits != null) {
+                if (isIntegral(type)) {
+                    // xs:int, xs:long, xs:integer and so on only allow fractionDigits 0
+                    constraint.facets.put("totalDigits", String.valueOf(digits.integer()));
+                } else {
+                    constraint.facets.put("totalDigits", String.valueOf(digits.integer() + digits.fraction()));
+                    constraint.facets.put("fractionDigits", String.valueOf(digits.fraction()));
+                }
+            }
+        }
+        if (constraint.isEmpty()) {
+            return;
+        }
+        final DocumentationAdder.Type nodeType;
+        if (attribute != null) {
+            nodeType = DocumentationAdder.Type.ATTRIBUTE;
+            if (!"##default".equals(attribute.name())) {
+                name = attribute.name();
+            }
+        } else {
+            nodeType = DocumentationAdder.Type.ELEMENT;
+            XmlElement element = member.getAnnotation(XmlElement.class);
+            if (element != null && !"##default".equals(element.name())) {
+                name = element.name();
+            }
+        }
+        result.put(DocumentationAdder.name(parent, nodeType, name), constraint);
+    }
+
+    private static boolean isIntegral(Class<?> type) {
+        return type == int.class || type == Integer.class
+            || type == long.class || type == Long.class
+            || type == short.class || type == Short.class
+            || type == byte.class || type == Byte.class
+            || type == BigInteger.class;
+    }
+
+    private static String propertyName(String methodName) {
+        String name = methodName;
+        if (name.startsWith("get") && name.length() > 3) {
+            name = name.substring(3);
+        } else if (name.startsWith("is") && name.length() > 2) {
+            name = name.substring(2);
+        }
+        return Character.toLowerCase(name.charAt(0)) + name.substring(1);
+    }
+
+    /**
+     * XSD patterns always match the complete value, as {@link Pattern} does, but they don't know the anchors {@code ^} and {@code $}.
+     * <p>
+     * XSD regular expressions are also a lot simpler than java's. Constructs that XSD doesn't have (like groups starting with {@code (?}, boundaries, back references, reluctant and possessive quantifiers, nested classes and intersections, or escapes like {@code \Q} and {@code \x}) would make the schema invalid, or mean something else, so for those this returns {@code null}. Escaped characters that are not special in XSD (like {@code \$}) are unescaped.
+     * @return The XSD pattern, or {@code null} if the given regular expression can't be expressed as one
+     */
+    @Nullable
+    static String xsdPattern(String regexp) {
+        String source = regexp;
+        if (source.startsWith("^")) {
+            source = source.substring(1);
+        }
+        if (source.endsWith("$") && !source.endsWith("\\$")) {
+            source = source.substring(0, source.length() - 1);
+        }
+        final StringBuilder result = new StringBuilder(source.length());
+        boolean inClass = false;
+        boolean quantified = false;
+        for (int i = 0; i < source.length(); i++) {
+            final char c = source.charAt(i);
+            if (c == '\\') {
+                if (++i == source.length()) {
+                    return null;
+                }
+                final char escaped = source.charAt(i);
+                if (escaped == 'p' || escaped == 'P') {
+                    final int end = source.indexOf('}', i);
+                    if (end < 0 || source.charAt(i + 1) != '{' || !source.substring(i + 2, end).matches("[LMNPZSC][a-z]?|Is[A-Za-z0-9-]+")) {
+                        return null;
+                    }
+                    result.append(source, i - 1, end + 1);
+                    i = end;
+                } else if ("nrtsSdDwW\\|.?*+(){}-[]^".indexOf(escaped) >= 0) {
+                    result.append(c).append(escaped);
+                } else if (Character.isLetterOrDigit(escaped)) {
+                    // back references, boundaries, quoting, hexadecimal escapes, ...
+                    return null;
+                } else {
+                    result.append(escaped);
+                }
+                quantified = false;
+                continue;
+            }
+            if (inClass) {
+                if (c == '[' || (c == '&' && source.startsWith("&&", i))) {
+                    return null;
+                }
+                inClass = c != ']';
+                result.append(c);
+                continue;
+            }
+            switch (c) {
+                case '^':
+                case '$':
+                    // anchors in java, but normal characters in XSD
+                    return null;
+                case '(':
+                    if (source.startsWith("(?", i)) {
+                        return null;
+                    }
+                    quantified = false;
+                    break;
+                case '[':
+                    inClass = true;
+                    quantified = false;
+                    break;
+                case '*':
+                case '+':
+                case '?':
+                    if (quantified) {
+                        return null;
+                    }
+                    quantified = true;
+                    break;
+                case '{':
+                    final int end = source.indexOf('}', i);
+                    if (quantified || end < 0 || !source.substring(i + 1, end).matches("[0-9]+(,[0-9]*)?")) {
+                        return null;
+                    }
+                    result.append(source, i, end + 1);
+                    i = end;
+                    quantified = true;
+                    continue;
+                default:
+                    quantified = false;
+            }
+            result.append(c);
+        }
+        return inClass ? null : result.toString();
+    }
+
+    /**
+     * The constraints on one element or attribute.
+     */
+    static class Constraint {
+        /**
+         * Attributes for the {@code xs:element} or {@code xs:attribute} itself (like {@code minOccurs} or {@code use})
+         */
+        final Map<String, String> attributes = new LinkedHashMap<>();
+        /**
+         * The facets of its (simple) type
+         */
+        final Map<String, String> facets = new LinkedHashMap<>();
+
+        private void put(boolean occurs, String name, String value) {
+            (occurs ? attributes : facets).put(name, value);
+        }
+
+        boolean isEmpty() {
+            return attributes.isEmpty() && facets.isEmpty();
+        }
+
+        @Override
+        public String toString() {
+            return attributes + " " + facets;
+        }
+    }
+
+    /**
+     * Produces the SAX events of the constraints document.
+     */
+    private static class ConstraintsReader extends XMLFilterImpl {
+        private final Map<String, Constraint> constraints;
+
+        private ConstraintsReader(Map<String, Constraint> constraints) {
+            this.constraints = constraints;
+        }
+
+        @Override
+        public void parse(InputSource input) throws SAXException {
+            ContentHandler handler = getContentHandler();
+            handler.startDocument();
+            handler.startElement("", "constraints", "constraints", new AttributesImpl());
+            for (Map.Entry<String, Constraint> entry : constraints.entrySet()) {
+                AttributesImpl attributes = new AttributesImpl();
+                attributes.addAttribute("", "key", "key", "CDATA", entry.getKey());
+                for (Map.Entry<String, String> attribute : entry.getValue().attributes.entrySet()) {
+                    attributes.addAttribute("", attribute.getKey(), attribute.getKey(), "CDATA", attribute.getValue());
+                }
+                handler.startElement("", "constraint", "constraint", attributes);
+                for (Map.Entry<String, String> facet : entry.getValue().facets.entrySet()) {
+                    AttributesImpl value = new AttributesImpl();
+                    value.addAttribute("", "value", "value", "CDATA", facet.getValue());
+                    handler.startElement("", facet.getKey(), facet.getKey(), value);
+                    handler.endElement("", facet.getKey(), facet.getKey());
+                }
+                handler.endElement("", "constraint", "constraint");
+            }
+            handler.endElement("", "constraints", "constraints");
+            handler.endDocument();
+        }
+
+        @Override
+        public void parse(String systemId) throws SAXException {
+            parse(new InputSource(systemId));
+        }
+
+        @Override
+        public boolean getFeature(String name) {
+            return "http://xml.org/sax/features/namespaces".equals(name);
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) {
+            // the events are always the same
+        }
+    }
+}
@@ -1,27 +1,37 @@
 package org.meeuw.jaxbdocumentation;
 
 import lombok.Getter;
+import lombok.Setter;
 
+import java.util.Map;
 import java.util.function.Supplier;
 
 import javax.xml.transform.*;
-import javax.xml.transform.stream.StreamSource;
 
 /**
  * This is a similar tool {@link DocumentationAdder}, the idea here is that the types in by jaxb XSD are sometimes not perferct.
  * <p>
- * E.g. it misses {@link jakarta.validation.constraints.Pattern} to add a pattern on the type.
+ * E.g. it misses {@link jakarta.validation.constraints.Pattern} to add a pattern on the type. This adds the Bean Validation constraints {@link jakarta.validation.constraints.Pattern}, {@link jakarta.validation.constraints.Size}, {@link jakarta.validation.constraints.Min}, {@link jakarta.validation.constraints.Max} and {@link jakarta.validation.constraints.Digits} as facets of a restriction of the (built-in) type of the element or attribute, and {@link jakarta.validation.constraints.NotNull} as {@code minOccurs="1"} or {@code use="required"}. {@code Size} on a collection determines {@code minOccurs} and {@code maxOccurs}.
  * <p>
- * TODO: This is unfinished, and not working yet.
+ * This needs {@code jakarta.validation:jakarta.validation-api}, which is an optional dependency.
  *
  * @author Michiel Meeuwissen
  * @since 0.4
  */
 public class UpdateTypes implements Supplier<Transformer> {
 
+    private static final String XSLT = "/update-types.xslt";
+
     @Getter
     private final Class<?>[] classes;
     private Transformer transformer;
+    private volatile Map<String, TypeConstraints.Constraint> constraints;
+    /**
+     * The factory to compile the XSLT with. If {@code null} (the default), the stylesheet is provided by {@link TemplatesCache#getDefaultEngine()}.
+     */
+    @Getter
+    @Setter
+    private TransformerFactory transformerFactory = null;
 
 
     public UpdateTypes(Class<?>...classes) {
@@ -31,17 +41,50 @@ public class UpdateTypes implements Supplier<Transformer> {
     @Override
     public Transformer get() {
         if (transformer == null) {
-            try {
-                TransformerFactory transFact = TransformerFactory.newInstance();
-                transformer = transFact.newTransformer(
-                    new StreamSource(UpdateTypes.class.getResourceAsStream("/update-types.xslt")));
-                //transformer.setURIResolver(new DocumentationAdder.DocumentationResolver(createDocumentations(classes)));
-
-            } catch (TransformerConfigurationException e) {
-                throw new RuntimeException(e);
-            }
+            transformer = newTransformer();
         }
         return transformer;
+    }
+
+    /**
+     * Creates a new, configured {@link Transformer}. The XSLT is compiled only once, and the constraints are collected only once per instance.
+     * @since 0.6
+     */
+    public Transformer newTransformer() {
+        try {
+            Transformer result = TemplatesCache.get(transformerFactory, XSLT).newTransformer();
+            configure(result);
+            return result;
+        } catch (TransformerConfigurationException e) {
+            throw new RuntimeException(e);
+        }
+    }
 
+    private void configure(Transformer transformer) {
+        transformer.setURIResolver((href, base) -> TypeConstraints.URI.equals(href) ? TypeConstraints.toDocument(getConstraints()) : null);
+    }
+
+    /**
+     * @since 0.6
+     */
+    public void transform(Source source, Result out) throws TransformerException {
+        get().transform(source, out);
+    }
+
+    /**
+     * @return The constraints of the classes, per key (like {@link DocumentationAdder#getDocumentations()})
+     */
+    Map<String, TypeConstraints.Constraint> getConstraints() {
+        Map<String, TypeConstraints.Constraint> result = constraints;
+        if (result == null) {
+            synchronized (this) {
+                result = constraints;
+                if (result == null) {
+                    result = TypeConstraints.collect(classes);
+                    constraints = result;
+                }
+            }
+        }
+        return result;
     }
 }
@@ -1,8 +1,13 @@
 package org.meeuw.jaxbdocumentation;
 
-import java.io.IOException;
+import java.io.*;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
 import jakarta.xml.bind.JAXBContext;
 import jakarta.xml.bind.JAXBException;
@@ -13,6 +18,9 @@ import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.dom.DOMResult;
 import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.xml.sax.SAXException;
 
@@ -22,16 +30,41 @@ import org.xml.sax.SAXException;
  */
 public class Utils {
 
+    private static Executor defaultExecutor;
+
     /**
      * Returns XSD schema's as a map of {@link Source}'s. The key is the namespace.
+     * <p>
+     * The {@link JAXBContext} for the classes is cached (see {@link JAXBContextCache}).
      * @param classes To create schema's for.
      * @return a map with {@link Source}s
      * @throws JAXBException If something wrong with jaxb
      * @throws IOException if io
      */
     public static Map<String, Source> schemaSources(Class<?>... classes) throws JAXBException, IOException {
-        JAXBContext context = JAXBContext.newInstance(classes);
+        return schemaSources(JAXBContextCache.get(classes), classes.length);
+    }
+
+    /**
+     * Returns XSD schema's as a map of {@link Source}'s. The key is the namespace.
+     * @param context The JAXB context to create the schema's for
+     * @return a map with {@link Source}s
+     * @throws JAXBException If something wrong with jaxb
+     * @throws IOException if io
+     * @since 0.6
+     */
+    public static Map<String, Source> schemaSources(JAXBContext context) throws JAXBException, IOException {
+        return schemaSources(context, 0);
+    }
+
+    /**
+     * @param classes The number of classes, for the recorded event (0 if unknown)
+     */
+    private static Map<String, Source> schemaSources(JAXBContext context, int classes) throws JAXBException, IOException {
+        final JfrEvents.SchemaGeneration event = new JfrEvents.SchemaGeneration();
+        event.begin();
         final Map<String, DOMResult> results = new HashMap<>();
+        long start = Metrics.start();
         context.generateSchema(new SchemaOutputResolver() {
             @Override
             public Result createOutput(String namespaceUri, String suggestedFileName) {
@@ -46,9 +79,15 @@ public class Utils {
                 return dom;
             }
         });
+        Metrics.end(MetricsListener.Phase.SCHEMA_GENERATION, start);
+        if (event.shouldCommit()) {
+            event.classes = classes;
+            event.namespaces = results.size();
+            event.commit();
+        }
         Map<String, Source> sources = new HashMap<>();
         for (Map.Entry<String, DOMResult> result : results.entrySet()) {
-            Source source = new DOMSource(result.getValue().getNode());
+            Source source = new DOMSource(result.getValue().getNode(), result.getValue().getSystemId());
             sources.put(result.getKey(), source);
         }
 
@@ -67,4 +106,120 @@ public class Utils {
         return result;
     }
 
+    /**
+     * As {@link #documentationSchemaSources(Class[])}, but the schemas of the several namespaces are transformed in parallel.
+     * @param executor The executor to use, e.g. {@link #defaultExecutor()}
+     * @since 0.6
+     */
+    public static Map<String, Source> documentationSchemaSources(Executor executor, Class<?>... classes) throws JAXBException, IOException, TransformerException {
+        DocumentationAdder transformer = new DocumentationAdder(classes);
+        transformer.setUseCache(true);
+        Map<String, DOMResult> domResults = transformer.transformAll(schemaSources(transformer.getClasses()), ns -> new DOMResult(), executor);
+        Map<String, Source> result = new HashMap<>();
+        for (Map.Entry<String, DOMResult> domResult : domResults.entrySet()) {
+            result.put(domResult.getKey(), new DOMSource(domResult.getValue().getNode()));
+        }
+        return result;
+    }
+
+    /**
+     * The executor used for parallel transformations if none is specified. This creates a virtual thread per task if the JVM supports that (java &ge; 21), and otherwise is {@link ForkJoinPool#commonPool()}.
+     * @since 0.6
+     */
+    public static synchronized Executor defaultExecutor() {
+        if (defaultExecutor == null) {
+            try {
+                defaultExecutor = (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+            } catch (ReflectiveOperationException e) {
+                defaultExecutor = ForkJoinPool.commonPool();
+            }
+        }
+        return defaultExecutor;
+    }
+
+    /**
+     * Generates the XSD's for the given classes, adds documentation, and writes them to the {@link Result}s supplied by the given resolver (one per namespace).
+     * <p>
+     * Unlike {@link #documentationSchemaSources(Class[])} no intermediate DOM trees are created. With {@link DocumentationAdder.Engine#STAX} the schema generated by JAXB is streamed as SAX events straight into the results. The XSLT engine can't consume the SAX events of JAXB directly (the JDK's XSLTC then fails to resolve {@code document()}), so then the generated schemas are buffered serialized before being transformed.
+     * @param adder The {@link DocumentationAdder} to use
+     * @param resolver Supplies the {@link Result} for every namespace. If it has no system id, the namespace (or the suggested file name) is used as system id.
+     * @throws JAXBException If something wrong with jaxb
+     * @throws IOException if io
+     * @since 0.6
+     */
+    public static void writeDocumentationSchemas(DocumentationAdder adder, SchemaOutputResolver resolver) throws JAXBException, IOException, TransformerException {
+        JAXBContext context = JAXBContextCache.get(adder.getClasses());
+        final JfrEvents.SchemaGeneration event = new JfrEvents.SchemaGeneration();
+        event.begin();
+        long start = Metrics.start();
+        if (adder.getEngine() == DocumentationAdder.Engine.STAX) {
+            context.generateSchema(new SchemaOutputResolver() {
+                @Override
+                public Result createOutput(String namespaceUri, String suggestedFileName) throws IOException {
+                    Result target = resolver.createOutput(namespaceUri, suggestedFileName);
+                    if (target == null) {
+                        return null;
+                    }
+                    event.namespaces++;
+                    SAXResult result = new SAXResult(adder.newContentHandler(target));
+                    result.setSystemId(systemId(target, namespaceUri, suggestedFileName));
+                    return result;
+                }
+            });
+            Metrics.end(MetricsListener.Phase.SCHEMA_GENERATION, start);
+        } else {
+            // per target, the buffer (with the system id) to which JAXB writes the schema
+            final Map<Result, StreamResult> buffers = new LinkedHashMap<>();
+            context.generateSchema(new SchemaOutputResolver() {
+                @Override
+                public Result createOutput(String namespaceUri, String suggestedFileName) throws IOException {
+                    Result target = resolver.createOutput(namespaceUri, suggestedFileName);
+                    if (target == null) {
+                        return null;
+                    }
+                    StreamResult result = new StreamResult(new ByteArrayOutputStream());
+                    result.setSystemId(systemId(target, namespaceUri, suggestedFileName));
+                    buffers.put(target, result);
+                    return result;
+                }
+            });
+            Metrics.end(MetricsListener.Phase.SCHEMA_GENERATION, start);
+            event.end();
+            for (Map.Entry<Result, StreamResult> e : buffers.entrySet()) {
+                ByteArrayOutputStream buffer = (ByteArrayOutputStream) e.getValue().getOutputStream();
+                event.namespaces++;
+                event.bytes += buffer.size();
+                adder.transform(new StreamSource(new ByteArrayInputStream(buffer.toByteArray()), e.getValue().getSystemId()), e.getKey());
+            }
+        }
+        if (event.shouldCommit()) {
+            event.classes = adder.getClasses().length;
+            event.commit();
+        }
+    }
+
+    /**
+     * Like {@link #writeDocumentationSchemas(DocumentationAdder, SchemaOutputResolver)}, but writes the XSD for every namespace to an {@link OutputStream}.
+     * @param outputs Supplies an {@link OutputStream} for the given namespace. It is not closed by this method.
+     * @since 0.6
+     */
+    public static void writeDocumentationSchemas(DocumentationAdder adder, Function<String, OutputStream> outputs) throws JAXBException, IOException, TransformerException {
+        writeDocumentationSchemas(adder, new SchemaOutputResolver() {
+            @Override
+            public Result createOutput(String namespaceUri, String suggestedFileName) {
+                String key = namespaceUri != null && namespaceUri.length() > 0 ? namespaceUri : suggestedFileName;
+                StreamResult result = new StreamResult(outputs.apply(key));
+                result.setSystemId(key);
+                return result;
+            }
+        });
+    }
+
+    private static String systemId(Result target, String namespaceUri, String suggestedFileName) {
+        if (target.getSystemId() != null) {
+            return target.getSystemId();
+        }
+        return namespaceUri != null && namespaceUri.length() > 0 ? namespaceUri : suggestedFileName;
+    }
+
 }
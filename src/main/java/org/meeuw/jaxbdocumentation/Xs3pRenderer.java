@@ -0,0 +1,298 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import jakarta.xml.bind.JAXBException;
+import javax.xml.transform.*;
+import javax.xml.transform.dom.DOMResult;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Renders (annotated) schemas to XHTML documentation on the server side, with the bundled <a href="https://xml.fiforms.org/xs3p/">xs3p</a> stylesheet, in stead of letting browsers do that via an {@code xml-stylesheet} processing instruction (see {@link DocumentationAdder#setXmlStyleSheet(String)}).
+ * <p>
+ * The stylesheets are compiled only once (see {@link TemplatesCache}), which takes a few seconds. Imported schemas, and the links file mapping them to their documentation pages ({@code xs3p_links.xsl}) are resolved in memory, so nothing is fetched. Components of a schema imported as {@code schemaLocation="a"} are linked to the page {@code a.html}.
+ * <p>
+ * Rendered pages are cached per content hash of the schemas (and the settings of this renderer). The total size of the cache is bounded by a memory budget; the least recently used pages are evicted first.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class Xs3pRenderer {
+
+    public static final long DEFAULT_MAX_BYTES = 64L * 1024 * 1024;
+
+    static final String XS3P = "/xs3p/xs3p.xsl";
+    static final String XS3P_LINKS = "/xs3p/xs3p_links.xsl";
+    static final String LINKS_URI = "http://meeuw.org/xs3p/links";
+
+    private static final byte[] EMPTY_SCHEMA = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\"/>".getBytes(StandardCharsets.UTF_8);
+
+    private final long maxBytes;
+    private final LinkedHashMap<String, Page> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes = 0;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    /**
+     * The factory to compile xs3p with. If {@code null} (the default), the stylesheet is provided by {@link TemplatesCache#getDefaultEngine()}.
+     */
+    @Getter
+    @Setter
+    private TransformerFactory transformerFactory = null;
+    @Getter
+    @Setter
+    private boolean useJavaScript = true;
+    /**
+     * Whether xs3p looks up components in imported schemas (which are resolved in memory), e.g. to link them.
+     */
+    @Getter
+    @Setter
+    private boolean searchImportedSchemas = true;
+    /**
+     * If not {@code null}, the pages refer to this CSS, in stead of including xs3p's.
+     */
+    @Getter
+    @Setter
+    private String externalCSSURL = null;
+
+    public Xs3pRenderer() {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    public Xs3pRenderer(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * Renders the documentation of the schemas for the given classes.
+     * @param schemaCache Supplies the annotated schemas
+     */
+    public Map<String, Page> render(SchemaCache schemaCache, Class<?>... classes) throws JAXBException, IOException, TransformerException {
+        return render(schemaCache.get(classes));
+    }
+
+    /**
+     * Renders all given schemas.
+     * @param schemas The schemas, per system id (e.g. {@link SchemaCache#get(Class[])}). Imports are resolved against these system ids.
+     * @return The pages, per system id
+     */
+    public Map<String, Page> render(Map<String, SchemaCache.Schema> schemas) throws TransformerException {
+        Map<String, Page> result = new LinkedHashMap<>();
+        for (String systemId : schemas.keySet()) {
+            result.put(systemId, render(systemId, schemas));
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    /**
+     * Renders one of the given schemas.
+     * @param systemId The system id of the schema to render
+     * @param schemas All schemas, per system id, which it may import
+     */
+    public Page render(String systemId, Map<String, SchemaCache.Schema> schemas) throws TransformerException {
+        if (!schemas.containsKey(systemId)) {
+            throw new IllegalArgumentException("No schema " + systemId + " in " + schemas.keySet());
+        }
+        final String key = key(systemId, schemas);
+        synchronized (cache) {
+            Page page = cache.get(key);
+            if (page != null) {
+                hits.incrementAndGet();
+                Metrics.cache(MetricsListener.Cache.HTML, true);
+                return page;
+            }
+        }
+        misses.incrementAndGet();
+        Metrics.cache(MetricsListener.Cache.HTML, false);
+        long start = Metrics.start();
+        Page created = new Page(systemId, transform(systemId, schemas));
+        Metrics.end(MetricsListener.Phase.HTML, start);
+        synchronized (cache) {
+            Page existing = cache.putIfAbsent(key, created);
+            if (existing != null) {
+                return existing;
+            }
+            bytes += created.bytes.length;
+            evict();
+            return created;
+        }
+    }
+
+    /**
+     * Removes all cached pages.
+     */
+    public void invalidateAll() {
+        synchronized (cache) {
+            cache.clear();
+            bytes = 0;
+        }
+    }
+
+    /**
+     * @return The total number of bytes of the currently cached pages
+     */
+    public long getBytes() {
+        synchronized (cache) {
+            return bytes;
+        }
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    @Override
+    public String toString() {
+        return "Xs3pRenderer{bytes=" + getBytes() + ", maxBytes=" + maxBytes + ", hits=" + hits + ", misses=" + misses + ", evictions=" + evictions + "}";
+    }
+
+    private byte[] transform(String systemId, Map<String, SchemaCache.Schema> schemas) throws TransformerException {
+        final SchemaResolver resolver = new SchemaResolver(schemas);
+
+        final Transformer links = TemplatesCache.get(transformerFactory, XS3P_LINKS).newTransformer();
+        links.setURIResolver(resolver);
+        final DOMResult linksDocument = new DOMResult();
+        links.transform(resolver.source(systemId), linksDocument);
+        resolver.links = linksDocument.getNode();
+
+        final Transformer xs3p = TemplatesCache.get(transformerFactory, XS3P).newTransformer();
+        xs3p.setURIResolver(resolver);
+        xs3p.setParameter("linksFile", LINKS_URI);
+        xs3p.setParameter("searchImportedSchemas", String.valueOf(searchImportedSchemas));
+        xs3p.setParameter("searchIncludedSchemas", String.valueOf(searchImportedSchemas));
+        xs3p.setParameter("useJavaScript", String.valueOf(useJavaScript));
+        if (externalCSSURL != null) {
+            xs3p.setParameter("externalCSSURL", externalCSSURL);
+        }
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        xs3p.transform(resolver.source(systemId), new StreamResult(out));
+        return out.toByteArray();
+    }
+
+    private String key(String systemId, Map<String, SchemaCache.Schema> schemas) {
+        StringBuilder key = new StringBuilder()
+            .append(useJavaScript).append(' ')
+            .append(searchImportedSchemas).append(' ')
+            .append(externalCSSURL).append(' ')
+            .append(transformerFactory == null ? null : transformerFactory.getClass().getName()).append('\n')
+            .append(systemId).append('\n');
+        // the rendering of a schema may depend on all others it imports
+        for (Map.Entry<String, SchemaCache.Schema> e : new TreeMap<>(schemas).entrySet()) {
+            key.append(e.getKey()).append('=').append(e.getValue().getHash()).append('\n');
+        }
+        return SchemaCache.Schema.sha256(key.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void evict() {
+        Iterator<Map.Entry<String, Page>> i = cache.entrySet().iterator();
+        // always keep the most recent one, even if it exceeds the budget on its own
+        while (bytes > maxBytes && cache.size() > 1 && i.hasNext()) {
+            Page page = i.next().getValue();
+            i.remove();
+            bytes -= page.bytes.length;
+            evictions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Resolves the schemas (as imported from other schemas) and the links file in memory. Anything unknown resolves to an empty schema, so nothing is ever fetched.
+     */
+    private static class SchemaResolver implements URIResolver {
+        private final Map<String, SchemaCache.Schema> schemas;
+        private org.w3c.dom.Node links;
+
+        SchemaResolver(Map<String, SchemaCache.Schema> schemas) {
+            this.schemas = schemas;
+        }
+
+        Source source(String systemId) {
+            return new StreamSource(new ByteArrayInputStream(schemas.get(systemId).getBytes()), systemId);
+        }
+
+        @Override
+        public Source resolve(String href, String base) {
+            if (LINKS_URI.equals(href)) {
+                return new DOMSource(links, LINKS_URI);
+            }
+            if (schemas.containsKey(href)) {
+                return source(href);
+            }
+            if (base != null) {
+                try {
+                    String resolved = new URI(base).resolve(href).toString();
+                    if (schemas.containsKey(resolved)) {
+                        return source(resolved);
+                    }
+                } catch (URISyntaxException | IllegalArgumentException e) {
+                    // not resolvable, fall through
+                }
+            }
+            return new StreamSource(new ByteArrayInputStream(EMPTY_SCHEMA), href);
+        }
+    }
+
+    /**
+     * A rendered XHTML page.
+     */
+    public static class Page {
+        @Getter
+        private final String systemId;
+        private final byte[] bytes;
+        @Getter
+        private final String hash;
+
+        Page(String systemId, byte[] bytes) {
+            this.systemId = systemId;
+            this.bytes = bytes;
+            this.hash = SchemaCache.Schema.sha256(bytes);
+        }
+
+        /**
+         * @return The XHTML, encoded as declared in it (xs3p uses ISO-8859-1). This is the cached array itself, and must not be modified.
+         */
+        public byte[] getBytes() {
+            return bytes;
+        }
+
+        public void writeTo(OutputStream out) throws IOException {
+            out.write(bytes);
+        }
+
+        /**
+         * @return A strong ETag (a quoted SHA-256 of the contents)
+         */
+        public String getETag() {
+            return "\"" + hash + "\"";
+        }
+
+        @Override
+        public String toString() {
+            return systemId + " (" + bytes.length + " bytes, " + hash + ")";
+        }
+    }
+}
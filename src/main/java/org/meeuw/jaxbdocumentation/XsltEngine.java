@@ -0,0 +1,55 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.net.URL;
+import javax.xml.transform.Templates;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamSource;
+import org.checkerframework.checker.nullness.qual.NonNull;
+
+/**
+ * Provides the compiled stylesheets (and the identity transformers) for {@link DocumentationAdder}, {@link UpdateTypes} and {@link Xs3pRenderer}, if they have no {@link TransformerFactory} set explicitly.
+ * <p>
+ * The engine used is {@link TemplatesCache#getDefaultEngine()}. That is the first implementation found with {@link java.util.ServiceLoader} (so an implementation can be registered in {@code META-INF/services/org.meeuw.jaxbdocumentation.XsltEngine}) or else one just using the JDK's own {@link TransformerFactory} (unless the system property {@code javax.xml.transform.TransformerFactory} is set). It can also be set with {@link TemplatesCache#setDefaultEngine(XsltEngine)}, e.g. to a {@link TransletEngine}.
+ * <p>
+ * Implementations must be thread-safe. {@link #newTemplates(String)} is called only once per stylesheet per engine (see {@link TemplatesCache}).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public interface XsltEngine {
+
+    /**
+     * @return The factory for the identity transformers, and, normally, to compile the stylesheets with
+     */
+    TransformerFactory getTransformerFactory();
+
+    /**
+     * Compiles, or otherwise obtains, a stylesheet.
+     * @param resource The absolute classpath resource of the XSLT (e.g. {@code /add-documentation.xslt})
+     */
+    default Templates newTemplates(@NonNull String resource) throws TransformerConfigurationException {
+        return compile(getTransformerFactory(), resource);
+    }
+
+    /**
+     * @return An engine just compiling the stylesheets with the given factory
+     */
+    static XsltEngine of(@NonNull TransformerFactory factory) {
+        return () -> factory;
+    }
+
+    /**
+     * Compiles the XSLT at the given classpath resource with the given factory.
+     */
+    static Templates compile(@NonNull TransformerFactory factory, @NonNull String resource) throws TransformerConfigurationException {
+        URL url = XsltEngine.class.getResource(resource);
+        if (url == null) {
+            throw new IllegalArgumentException("No such resource " + resource);
+        }
+        // TransformerFactory itself is not thread-safe
+        synchronized (factory) {
+            return factory.newTemplates(new StreamSource(url.toExternalForm()));
+        }
+    }
+}
@@ -17,7 +17,7 @@
 	</xsl:template>
 
 	<xsl:template match="xs:include | xs:import">
-		<schema>
+		<schema xmlns="http://titanium.dstc.edu.au/xml/xs3p">
 			<xsl:attribute name="file-location">
 				<xsl:value-of select="@schemaLocation"/>
 			</xsl:attribute>
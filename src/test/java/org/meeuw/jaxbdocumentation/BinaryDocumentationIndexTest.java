@@ -0,0 +1,77 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class BinaryDocumentationIndexTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void roundTrip() throws IOException {
+        Map<String, String> map = new HashMap<>();
+        map.put("{http://meeuw.org/a}a", "some docu about a");
+        map.put("{http://meeuw.org/a}a|ELEMENT|b", "docu of b");
+        map.put("{}b|ATTRIBUTE|é", "ünïcödé ☃");
+        map.put("{}b|ATTRIBUTE|e", "");
+        map.put("", "empty key");
+
+        Path file = dir.resolve("documentation.idx");
+        BinaryDocumentationIndex.write(map, file);
+        BinaryDocumentationIndex index = BinaryDocumentationIndex.open(file);
+
+        assertThat(index).hasSize(5);
+        assertThat(index).isEqualTo(map);
+        for (Map.Entry<String, String> e : map.entrySet()) {
+            assertThat(index.get(e.getKey())).isEqualTo(e.getValue());
+        }
+        assertThat(index.get("{}c")).isNull();
+        assertThat(index.get("{}b|ATTRIBUTE|")).isNull();
+        assertThat(index.containsKey("{}b|ATTRIBUTE|e")).isTrue();
+        assertThat(index.get(1)).isNull();
+    }
+
+    @Test
+    public void empty() {
+        BinaryDocumentationIndex index = BinaryDocumentationIndex.of(BinaryDocumentationIndex.toBytes(new HashMap<>()));
+        assertThat(index).isEmpty();
+        assertThat(index.get("a")).isNull();
+    }
+
+    @Test
+    public void invalid() {
+        assertThatThrownBy(() -> BinaryDocumentationIndex.of(new byte[] {'a', 'b', 'c', 'd', 0, 0, 0, 1, 0, 0, 0, 0}))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BinaryDocumentationIndex.of(new byte[] {'J', 'X', 'D', 'I', 0, 0, 0, 2, 0, 0, 0, 0}))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void sameResult(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+        adder.setEngine(engine);
+        Path file = dir.resolve("a.idx");
+        BinaryDocumentationIndex.write(adder.getDocumentations(), file);
+
+        DocumentationAdder fromIndex = new DocumentationAdder(BinaryDocumentationIndex.open(file), DocumentationAdderTest.A.class);
+        fromIndex.setEngine(engine);
+        assertThat(fromIndex.getDocumentations()).isEqualTo(adder.getDocumentations());
+        assertThat(fromIndex.write()).isEqualTo(adder.write());
+    }
+}
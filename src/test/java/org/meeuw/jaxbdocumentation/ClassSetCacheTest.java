@@ -0,0 +1,58 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class ClassSetCacheTest {
+
+    @Test
+    public void contentKeyed() {
+        ClassSetCache<String> cache = new ClassSetCache<>();
+        AtomicInteger created = new AtomicInteger();
+        assertThat(cache.get(new Class<?>[] {String.class, Integer.class}, c -> "value" + created.incrementAndGet())).isEqualTo("value1");
+        assertThat(cache.get(new Class<?>[] {String.class, Integer.class}, c -> "value" + created.incrementAndGet())).isEqualTo("value1");
+        assertThat(cache.get(new Class<?>[] {Integer.class, String.class}, c -> "value" + created.incrementAndGet())).isEqualTo("value1");
+        assertThat(cache.get(new Class<?>[] {Integer.class}, c -> "value" + created.incrementAndGet())).isEqualTo("value2");
+
+        assertThat(cache.getHits()).isEqualTo(2);
+        assertThat(cache.getMisses()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(0);
+        assertThat(cache.size()).isEqualTo(2);
+    }
+
+    @Test
+    public void lru() {
+        ClassSetCache<String> cache = new ClassSetCache<>(2);
+        cache.get(new Class<?>[] {String.class}, c -> "a");
+        cache.get(new Class<?>[] {Integer.class}, c -> "b");
+        cache.get(new Class<?>[] {String.class}, c -> "a");
+        cache.get(new Class<?>[] {Long.class}, c -> "c");
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        // Integer was least recently used
+        assertThat(cache.get(new Class<?>[] {String.class}, c -> "x")).isEqualTo("a");
+        assertThat(cache.get(new Class<?>[] {Integer.class}, c -> "x")).isEqualTo("x");
+    }
+
+    @Test
+    public void documentationAdder() {
+        long misses = DocumentationAdder.getCache().getMisses();
+        long hits = DocumentationAdder.getCache().getHits();
+        DocumentationAdder adder1 = new DocumentationAdder(DocumentationAdderTest.A.class, DocumentationAdderTest.B.class);
+        adder1.setUseCache(true);
+        DocumentationAdder adder2 = new DocumentationAdder(DocumentationAdderTest.B.class, DocumentationAdderTest.A.class);
+        adder2.setUseCache(true);
+        Map<String, String> docs = adder1.getDocumentations();
+        assertThat(adder2.getDocumentations()).isEqualTo(docs);
+        assertThat(DocumentationAdder.getCache().getMisses()).isEqualTo(misses + 1);
+        assertThat(DocumentationAdder.getCache().getHits()).isEqualTo(hits + 1);
+    }
+}
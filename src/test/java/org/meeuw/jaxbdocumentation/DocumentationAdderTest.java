@@ -5,11 +5,25 @@ import jakarta.xml.bind.annotation.*;
 import lombok.Data;
 
 import java.io.IOException;
-import java.util.List;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.lang.ref.WeakReference;
+import java.util.*;
+import java.util.concurrent.*;
 
+import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.sax.SAXResult;
+import javax.xml.transform.sax.SAXTransformerFactory;
+import javax.xml.transform.sax.TransformerHandler;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.assertj.core.api.Assertions;
 
 import org.meeuw.xml.bind.annotation.XmlDocumentation;
 
@@ -24,6 +38,7 @@ import static org.xmlunit.assertj3.XmlAssert.assertThat;
 public class DocumentationAdderTest {
 
     public static final String NS = "http://meeuw.org/a";
+    public static final String NS2 = "http://meeuw.org/b";
 
     @XmlTransient
     public static class Parent {
@@ -115,9 +130,11 @@ public class DocumentationAdderTest {
     }
 
 
-    @Test
-    public void addDocumentation() throws JAXBException, IOException, TransformerException, jakarta.xml.bind.JAXBException {
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void addDocumentation(DocumentationAdder.Engine engine) throws JAXBException, IOException, TransformerException, jakarta.xml.bind.JAXBException {
         DocumentationAdder collector = new DocumentationAdder(A.class);
+        collector.setEngine(engine);
         //collector.setXmlStyleSheet("xs3p.xsl")
         collector.setDebug(true);
         String string = collector.write();
@@ -217,9 +234,11 @@ public class DocumentationAdderTest {
         @XmlAttribute
         SomeEnum someEnum;
     }
-    @Test
-    public void enumValue() throws JAXBException, IOException, TransformerException {
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void enumValue(DocumentationAdder.Engine engine) throws JAXBException, IOException, TransformerException {
         DocumentationAdder collector = new DocumentationAdder(EnumValueTest.class);
+        collector.setEngine(engine);
         String string  = collector.write();
 
         assertThat(string)
@@ -254,9 +273,11 @@ public class DocumentationAdderTest {
         List<String> elements;
     }
 
-    @Test
-    public void xmlElementName() throws JAXBException, IOException, TransformerException {
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void xmlElementName(DocumentationAdder.Engine engine) throws JAXBException, IOException, TransformerException {
         DocumentationAdder adder = new DocumentationAdder(WithXmlElementName.class);
+        adder.setEngine(engine);
         adder.setDebug(true);
         String string = adder.write();
 
@@ -294,9 +315,11 @@ public class DocumentationAdderTest {
         List<Object> elements;
     }
 
-    @Test
-    public void xmlElements() throws JAXBException, IOException, TransformerException {
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void xmlElements(DocumentationAdder.Engine engine) throws JAXBException, IOException, TransformerException {
         DocumentationAdder adder = new DocumentationAdder(WithXmlElements.class);
+        adder.setEngine(engine);
         adder.setDebug(true);
         String string = adder.write();
         assertThat(string).and("<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" version=\"1.0\">\n" +
@@ -324,4 +347,239 @@ public class DocumentationAdderTest {
             .areSimilar();
     }
 
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void concurrent(DocumentationAdder.Engine engine) throws Exception {
+        // serialize the schemas first, a DOM is not safe to read from several threads
+        List<String> schemas = new ArrayList<>();
+        for (Source source : Utils.schemaSources(A.class).values()) {
+            StringWriter writer = new StringWriter();
+            TransformerFactory.newDefaultInstance().newTransformer().transform(source, new StreamResult(writer));
+            schemas.add(writer.toString());
+        }
+        DocumentationAdder adder = new DocumentationAdder(A.class);
+        adder.setEngine(engine);
+        adder.setConcurrent(true);
+        final String expected = transform(adder, schemas);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(executor.submit(() -> transform(adder, schemas)));
+            }
+            for (Future<String> future : futures) {
+                Assertions.assertThat(future.get()).isEqualTo(expected);
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private static String transform(DocumentationAdder adder, List<String> schemas) throws TransformerException {
+        StringWriter writer = new StringWriter();
+        for (String schema : schemas) {
+            adder.transform(new StreamSource(new StringReader(schema)), new StreamResult(writer));
+        }
+        return writer.toString();
+    }
+
+    @XmlDocumentation("in another namespace")
+    @XmlType(namespace = NS2)
+    public static class OtherNamespace {
+        @XmlElement(namespace = NS2)
+        @XmlDocumentation("referring to a")
+        A a;
+
+        @XmlElement(namespace = NS2)
+        WithXmlElementName withXmlElementName;
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void parallel(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(OtherNamespace.class);
+        adder.setEngine(engine);
+        String serial = adder.write();
+        StringWriter parallel = new StringWriter();
+        adder.write(parallel, Utils.defaultExecutor());
+        Assertions.assertThat(parallel.toString()).isEqualTo(serial);
+        Assertions.assertThat(serial).contains("referring to a", "some docu of element b in a", "with xml element");
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            Map<String, Source> sources = Utils.documentationSchemaSources(executor, OtherNamespace.class);
+            Assertions.assertThat(sources.keySet()).containsExactlyInAnyOrder(NS, NS2, "schema3.xsd");
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Introspecting the classes in a {@link ForkJoinPool} must find the same documentations as doing it sequentially.
+     */
+    @Test
+    public void parallelIntrospection() throws Exception {
+        ModelGenerator generator = ModelGenerator.builder()
+            .types(300)
+            .namespaces(3)
+            .transientDepth(2)
+            .choices(3)
+            .enums(10)
+            .build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            Map<String, String> sequential = new DocumentationAdder(model.load()).getDocumentations();
+
+            // fresh classes, so that they are actually introspected in parallel
+            DocumentationAdder parallel = new DocumentationAdder(model.load());
+            parallel.setForkJoinPool(new ForkJoinPool(4));
+            Map<String, String> parallelDocumentations = parallel.getDocumentations();
+            parallel.getForkJoinPool().shutdown();
+
+            Assertions.assertThat(parallelDocumentations).hasSize(generator.documentations());
+            Assertions.assertThat(parallelDocumentations).isEqualTo(sequential);
+        }
+    }
+
+    @Test
+    public void deepModel() throws Exception {
+        // a chain T0 -> T1 -> ... -> T2999
+        try (ModelGenerator.Model model = ModelGenerator.builder().types(3000).elementsPerType(1).build().generate()) {
+            Class<?>[] classes = model.load();
+            Map<String, String> documentations = new DocumentationAdder(classes).getDocumentations();
+            Assertions.assertThat(documentations).hasSize(3000 * 3);
+
+            // walking the chain again (now cached per class) on a thread with a small stack
+            CompletableFuture<Map<String, String>> result = new CompletableFuture<>();
+            Thread thread = new Thread(null, () -> {
+                try {
+                    result.complete(new DocumentationAdder(classes[0]).getDocumentations());
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                }
+            }, "small stack", 128 * 1024);
+            thread.start();
+            Assertions.assertThat(result.get()).isEqualTo(documentations);
+        }
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void lazy(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder eager = new DocumentationAdder(A.class);
+        eager.setEngine(engine);
+        DocumentationAdder lazy = new DocumentationAdder(A.class);
+        lazy.setEngine(engine);
+        lazy.setLazy(true);
+
+        Assertions.assertThat(lazy.write()).isEqualTo(eager.write());
+        Assertions.assertThat(lazy.getDocumentations()).isEqualTo(eager.getDocumentations());
+    }
+
+    @Test
+    public void lazyOnlyResolvesWhatIsNeeded() throws Exception {
+        ModelGenerator generator = ModelGenerator.builder()
+            .types(200)
+            .namespaces(4)
+            .transientDepth(1)
+            .choices(2)
+            .enums(8)
+            .build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            Class<?>[] classes = model.load();
+            DocumentationAdder eager = new DocumentationAdder(classes);
+            eager.setEngine(DocumentationAdder.Engine.STAX);
+            DocumentationAdder lazy = new DocumentationAdder(classes);
+            lazy.setEngine(DocumentationAdder.Engine.STAX);
+            lazy.setLazy(true);
+            DocumentationAdder.LazyDocumentations documentations = (DocumentationAdder.LazyDocumentations) lazy.getDocumentations();
+            Assertions.assertThat(documentations.resolved()).isZero();
+
+            StringWriter fromLazy = new StringWriter();
+            lazy.transform(Utils.schemaSources(classes).get(ModelGenerator.namespace(0)), new StreamResult(fromLazy));
+            StringWriter fromEager = new StringWriter();
+            eager.transform(Utils.schemaSources(classes).get(ModelGenerator.namespace(0)), new StreamResult(fromEager));
+
+            Assertions.assertThat(fromLazy.toString()).isEqualTo(fromEager.toString());
+            // only the types of namespace 0 (and some enums)
+            Assertions.assertThat(documentations.resolved()).isBetween(1, 200 / 4 + 8);
+
+            Assertions.assertThat(documentations).hasSize(generator.documentations());
+            Assertions.assertThat(documentations).isEqualTo(eager.getDocumentations());
+        }
+    }
+
+    @Test
+    public void staxSourcesAndResults() throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(A.class);
+        adder.setEngine(DocumentationAdder.Engine.STAX);
+        Source dom = Utils.schemaSources(A.class).get(NS);
+        StringWriter schema = new StringWriter();
+        TransformerFactory.newDefaultInstance().newTransformer().transform(dom, new StreamResult(schema));
+
+        StringWriter fromStream = new StringWriter();
+        adder.transform(new StreamSource(new StringReader(schema.toString())), new StreamResult(fromStream));
+
+        StringWriter fromDom = new StringWriter();
+        adder.transform(dom, new StreamResult(fromDom));
+        assertThat(fromDom.toString()).and(fromStream.toString()).ignoreWhitespace().areSimilar();
+
+        StringWriter toSax = new StringWriter();
+        TransformerHandler handler = ((SAXTransformerFactory) TransformerFactory.newDefaultInstance()).newTransformerHandler();
+        handler.setResult(new StreamResult(toSax));
+        adder.transform(new StreamSource(new StringReader(schema.toString())), new SAXResult(handler));
+        assertThat(toSax.toString()).and(fromStream.toString()).ignoreWhitespace().areSimilar();
+        Assertions.assertThat(toSax.toString()).contains("some docu about a");
+    }
+
+    @Test
+    public void lazyIsCachedSeparately() {
+        DocumentationAdder lazy = new DocumentationAdder(A.class, B.class);
+        lazy.setUseCache(true);
+        lazy.setLazy(true);
+        Assertions.assertThat(lazy.getDocumentations()).isInstanceOf(DocumentationAdder.LazyDocumentations.class);
+
+        DocumentationAdder eager = new DocumentationAdder(A.class, B.class);
+        eager.setUseCache(true);
+        Assertions.assertThat(eager.getDocumentations()).isNotInstanceOf(DocumentationAdder.LazyDocumentations.class);
+        Assertions.assertThat(eager.getDocumentations()).isEqualTo(lazy.getDocumentations());
+    }
+
+    @Test
+    public void forgetEvictsCache() {
+        DocumentationAdder adder = new DocumentationAdder(A.class);
+        adder.setUseCache(true);
+        adder.getDocumentations();
+        long misses = DocumentationAdder.getCache().getMisses();
+
+        // B is only referred to by A
+        DocumentationAdder.forget(B.class);
+        DocumentationAdder again = new DocumentationAdder(A.class);
+        again.setUseCache(true);
+        Assertions.assertThat(again.getDocumentations()).isEqualTo(adder.getDocumentations());
+        Assertions.assertThat(DocumentationAdder.getCache().getMisses()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void lazyCacheDoesNotHoldClasses() throws Exception {
+        try (ModelGenerator.Model model = ModelGenerator.builder().types(20).build().generate()) {
+            WeakReference<ClassLoader> loader = cacheLazily(model);
+            Assertions.assertThat(DocumentationAdder.getLazyCache().size()).isPositive();
+            for (int i = 0; i < 50 && loader.get() != null; i++) {
+                System.gc();
+                Thread.sleep(10);
+            }
+            Assertions.assertThat(loader.get()).isNull();
+        }
+    }
+
+    private static WeakReference<ClassLoader> cacheLazily(ModelGenerator.Model model) {
+        Class<?>[] classes = model.load();
+        DocumentationAdder lazy = new DocumentationAdder(classes);
+        lazy.setUseCache(true);
+        lazy.setLazy(true);
+        Assertions.assertThat(lazy.getDocumentations().get(DocumentationAdder.defaultName(classes[0]))).isNotNull();
+        return new WeakReference<>(classes[0].getClassLoader());
+    }
+
 }
@@ -0,0 +1,163 @@
+package org.meeuw.jaxbdocumentation;
+
+import jakarta.xml.bind.annotation.XmlElement;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.*;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class DocumentationIndexProcessorTest {
+
+    private static final String SOURCE = String.join("\n",
+        "package org.meeuw.indexed;",
+        "import jakarta.xml.bind.annotation.*;",
+        "import java.util.List;",
+        "import org.meeuw.xml.bind.annotation.XmlDocumentation;",
+        "import org.meeuw.xml.bind.annotation.XmlDocumentations;",
+        "public class Root {",
+        "    @XmlTransient",
+        "    public static class Parent {",
+        "        @XmlAttribute",
+        "        @XmlDocumentation(\"documentation of parent attribute\")",
+        "        String parentAttr;",
+        "    }",
+        "    @XmlDocumentation(\"some docu about a\")",
+        "    @XmlType(namespace = \"http://meeuw.org/a\")",
+        "    @XmlAccessorType(XmlAccessType.FIELD)",
+        "    public static class A extends Parent {",
+        "        @XmlAttribute(name = \"int\")",
+        "        @XmlDocumentation(\"documentation of attribute integer\")",
+        "        Integer intAttribute;",
+        "        @XmlElement(name = \"bee\")",
+        "        @XmlDocumentation(\"docu of b\")",
+        "        B b;",
+        "        @XmlElements({@XmlElement(type = C.class, name = \"c\"), @XmlElement(type = B.class, name = \"b2\")})",
+        "        @XmlDocumentations({@XmlDocumentation(\"docu of list\"), @XmlDocumentation(name = \"c\", value = \"docu of c\")})",
+        "        List<Object> elements;",
+        "        @XmlDocumentation(\"docu of enum\")",
+        "        E e;",
+        "        @XmlTransient",
+        "        @XmlDocumentation(\"never\")",
+        "        String transientField;",
+        "    }",
+        "    @XmlType(name = \"bType\")",
+        "    public static class B {",
+        "        @XmlDocumentation(\"docu of getter\")",
+        "        public String getValue() { return null; }",
+        "    }",
+        "    public static class C {",
+        "        @XmlElement",
+        "        @XmlDocumentation(\"docu of private field in c\")",
+        "        private int[] numbers;",
+        "    }",
+        "    public enum E {",
+        "        @XmlDocumentation(\"docu of x\")",
+        "        X,",
+        "        Y",
+        "    }",
+        "}");
+
+    @TempDir
+    static Path dir;
+
+    static Path indexed;
+    static Path notIndexed;
+
+    @BeforeAll
+    public static void compile() throws IOException, URISyntaxException {
+        indexed = Files.createDirectories(dir.resolve("indexed"));
+        notIndexed = Files.createDirectories(dir.resolve("notIndexed"));
+        Path source = Files.createDirectories(dir.resolve("src/org/meeuw/indexed")).resolve("Root.java");
+        Files.write(source, SOURCE.getBytes(StandardCharsets.UTF_8));
+        String classPath = Stream.of(XmlElement.class, XmlDocumentation.class)
+            .map(c -> {
+                try {
+                    return Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+                } catch (URISyntaxException e) {
+                    throw new IllegalStateException(e);
+                }
+            })
+            .collect(Collectors.joining(File.pathSeparator));
+
+        assertThat(compile(source, classPath, indexed, true)).isEmpty();
+        assertThat(compile(source, classPath, notIndexed, false)).isEmpty();
+        assertThat(indexed.resolve("META-INF/jaxb-documentation/org.meeuw.indexed.properties")).exists();
+        assertThat(notIndexed.resolve("META-INF")).doesNotExist();
+    }
+
+    private static String compile(Path source, String classPath, Path output, boolean process) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        StringWriter messages = new StringWriter();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            List<String> options = new ArrayList<>(Arrays.asList("-classpath", classPath, "-d", output.toString()));
+            if (!process) {
+                options.add("-proc:none");
+            }
+            JavaCompiler.CompilationTask task = compiler.getTask(messages, fileManager, null, options, null, fileManager.getJavaFileObjects(source));
+            if (process) {
+                task.setProcessors(Collections.singletonList(new DocumentationIndexProcessor()));
+            }
+            if (!task.call()) {
+                return "failed: " + messages;
+            }
+        }
+        return "";
+    }
+
+    @Test
+    public void sameAsReflection() throws Exception {
+        try (URLClassLoader withIndex = new URLClassLoader(new URL[] {indexed.toUri().toURL()}, getClass().getClassLoader());
+             URLClassLoader withoutIndex = new URLClassLoader(new URL[] {notIndexed.toUri().toURL()}, getClass().getClassLoader())) {
+
+            Class<?> indexedA = withIndex.loadClass("org.meeuw.indexed.Root$A");
+            assertThat(DocumentationIndex.load(indexedA)).isNotNull();
+            Class<?> reflectedA = withoutIndex.loadClass("org.meeuw.indexed.Root$A");
+            assertThat(DocumentationIndex.load(reflectedA)).isNull();
+
+            Map<String, String> fromIndex = new DocumentationAdder(indexedA).getDocumentations();
+            Map<String, String> fromReflection = new DocumentationAdder(reflectedA).getDocumentations();
+
+            assertThat(fromIndex).isEqualTo(fromReflection);
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a", "some docu about a");
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a|ATTRIBUTE|parentAttr", "documentation of parent attribute");
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a|ATTRIBUTE|int", "documentation of attribute integer");
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a|ELEMENT|bee", "docu of b");
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a|ELEMENT|c", "docu of c");
+            assertThat(fromIndex).containsEntry("{http://meeuw.org/a}a|ELEMENT|b2", "docu of list");
+            assertThat(fromIndex).containsEntry("{}bType|ELEMENT|Value", "docu of getter");
+            assertThat(fromIndex).containsEntry("{}c|ELEMENT|numbers", "docu of private field in c");
+            assertThat(fromIndex).containsEntry("{}e|ENUMERATION|X", "docu of x");
+            assertThat(fromIndex).doesNotContainValue("never");
+        }
+    }
+
+    @Test
+    public void reproducible() throws IOException {
+        List<String> lines = Files.readAllLines(indexed.resolve("META-INF/jaxb-documentation/org.meeuw.indexed.properties"));
+        assertThat(lines).isSorted();
+        assertThat(lines).noneMatch(l -> l.startsWith("#"));
+    }
+}
@@ -0,0 +1,85 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.OutputStream;
+import java.time.Duration;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.meeuw.jaxbdocumentation.MetricsListener.Cache;
+import static org.meeuw.jaxbdocumentation.MetricsListener.Phase;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class InMemoryMetricsTest {
+
+    final InMemoryMetrics metrics = new InMemoryMetrics();
+
+    @BeforeEach
+    public void setup() {
+        Metrics.setListener(metrics);
+    }
+
+    @AfterEach
+    public void reset() {
+        Metrics.reset();
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void phases(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+        adder.setEngine(engine);
+        adder.write();
+
+        assertThat(metrics.getCount(Phase.SCHEMA_GENERATION)).isEqualTo(1);
+        assertThat(metrics.getCount(Phase.INTROSPECTION)).isEqualTo(1);
+        assertThat(metrics.getCount(Phase.TRANSFORM)).isEqualTo(1);
+        assertThat(metrics.getCount(Phase.SERIALIZATION)).isEqualTo(engine == DocumentationAdder.Engine.XSLT ? 1 : 0);
+        assertThat(metrics.getTotal(Phase.TRANSFORM)).isGreaterThan(Duration.ZERO);
+        assertThat(metrics.getMax(Phase.TRANSFORM)).isEqualTo(metrics.getTotal(Phase.TRANSFORM));
+        assertThat(metrics.getIntrospections()).isEqualTo(1);
+        // A, B, C, SomeEnum, WithLombok (and e.g. the type of the synthetic field of the enum)
+        assertThat(metrics.getClasses()).isGreaterThanOrEqualTo(5);
+        assertThat(metrics.getDocumentationKeys()).isEqualTo(adder.getDocumentations().size());
+        assertThat(metrics.getHits(Cache.JAXB_CONTEXT) + metrics.getMisses(Cache.JAXB_CONTEXT)).isEqualTo(1);
+    }
+
+    @Test
+    public void caches() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            // (not the classes of other tests, since the caches are static)
+            DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.WithLombok.class, DocumentationAdderTest.SomeEnum.class);
+            adder.setUseCache(true);
+            Utils.writeDocumentationSchemas(adder, ns -> OutputStream.nullOutputStream());
+        }
+        assertThat(metrics.getMisses(Cache.DOCUMENTATION)).isLessThanOrEqualTo(1);
+        assertThat(metrics.getHits(Cache.DOCUMENTATION) + metrics.getMisses(Cache.DOCUMENTATION)).isEqualTo(3);
+        assertThat(metrics.getHits(Cache.JAXB_CONTEXT)).isGreaterThanOrEqualTo(2);
+
+        SchemaCache schemaCache = new SchemaCache();
+        schemaCache.get(DocumentationAdderTest.WithLombok.class);
+        schemaCache.get(DocumentationAdderTest.WithLombok.class);
+        assertThat(metrics.getMisses(Cache.SCHEMA)).isEqualTo(1);
+        assertThat(metrics.getHits(Cache.SCHEMA)).isEqualTo(1);
+
+        assertThat(metrics.toString()).contains("SCHEMA_CACHE=1/1");
+        metrics.reset();
+        assertThat(metrics.getHits(Cache.SCHEMA)).isEqualTo(0);
+        assertThat(metrics.getCount(Phase.TRANSFORM)).isEqualTo(0);
+    }
+
+    @Test
+    public void disabled() throws Exception {
+        Metrics.reset();
+        new DocumentationAdder(DocumentationAdderTest.A.class).write();
+        assertThat(metrics.getCount(Phase.TRANSFORM)).isEqualTo(0);
+        assertThat(Metrics.start()).isEqualTo(0);
+    }
+}
@@ -0,0 +1,117 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class IncrementalSchemasTest {
+
+    private final ModelGenerator.ModelGeneratorBuilder builder = ModelGenerator.builder()
+        .types(10)
+        .namespaces(3)
+        .elementsPerType(3);
+
+    @Test
+    public void graph() throws Exception {
+        ModelGenerator generator = builder.build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            IncrementalSchemas schemas = new IncrementalSchemas(model.load()[0]);
+            assertThat(schemas.getSchemas()).hasSize(3);
+            ClassGraph graph = schemas.getGraph();
+            assertThat(graph.getClassNames()).hasSize(10);
+            assertThat(graph.getReferences(generator.className(1)))
+                .containsExactly(generator.className(4), generator.className(5), generator.className(6));
+            assertThat(graph.getDependents(generator.className(5))).containsExactly(generator.className(1));
+            assertThat(graph.getNamespaces(generator.className(5))).containsExactly(ModelGenerator.namespace(2));
+            assertThat(graph.getFragment(generator.className(5))).containsEntry("{" + ModelGenerator.namespace(2) + "}t5", "documentation of type 5");
+            assertThat(schemas.getIntrospections()).isEqualTo(10);
+            assertThat(schemas.getTransformations()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void documentationChanged() throws Exception {
+        ModelGenerator generator = builder.build();
+        try (ModelGenerator.Model model = generator.generate();
+             ModelGenerator.Model revised = builder.revised(7).build().generate()) {
+            IncrementalSchemas schemas = new IncrementalSchemas(model.load());
+            Map<String, SchemaCache.Schema> before = schemas.getSchemas();
+
+            Class<?>[] classes = revised.load();
+            Set<String> transformed = schemas.update(classes, Collections.singleton(generator.className(7)));
+
+            assertThat(transformed).containsExactly(ModelGenerator.namespace(1));
+            assertThat(schemas.getIntrospections()).isEqualTo(10 + 1);
+            assertThat(schemas.getTransformations()).isEqualTo(3 + 1);
+            Map<String, SchemaCache.Schema> after = schemas.getSchemas();
+            assertThat(after.get(ModelGenerator.namespace(0))).isSameAs(before.get(ModelGenerator.namespace(0)));
+            assertThat(new String(after.get(ModelGenerator.namespace(1)).getBytes(), StandardCharsets.UTF_8)).contains("revised documentation of type 7");
+            assertSameAsFresh(after, classes);
+        }
+    }
+
+    @Test
+    public void classAdded() throws Exception {
+        ModelGenerator generator = builder.build();
+        ModelGenerator larger = builder.types(11).build();
+        try (ModelGenerator.Model model = generator.generate();
+             ModelGenerator.Model extended = larger.generate()) {
+            IncrementalSchemas schemas = new IncrementalSchemas(model.load()[0]);
+            schemas.getSchemas();
+
+            // T3 gets an element of the new type T10 (T0 is mentioned, because it is the root)
+            Class<?>[] classes = extended.load();
+            Set<String> transformed = schemas.update(classes[0], classes[3]);
+
+            assertThat(transformed).contains(ModelGenerator.namespace(0), ModelGenerator.namespace(1));
+            assertThat(schemas.getGraph().getDependents(larger.className(10))).containsExactly(larger.className(3));
+            assertThat(schemas.getIntrospections()).isEqualTo(10 + 3);
+            assertSameAsFresh(schemas.getSchemas(), classes[0]);
+        }
+    }
+
+    @Test
+    public void unchanged() throws Exception {
+        try (ModelGenerator.Model model = builder.build().generate()) {
+            IncrementalSchemas schemas = new IncrementalSchemas(model.load());
+            schemas.getSchemas();
+            assertThat(schemas.update(model.load(), Collections.emptySet())).isEmpty();
+            assertThat(schemas.getIntrospections()).isEqualTo(10);
+            assertThat(schemas.getTransformations()).isEqualTo(3);
+        }
+    }
+
+    @Test
+    public void redefinedInPlace() throws Exception {
+        ModelGenerator generator = builder.build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            Class<?>[] classes = {model.load()[0]};
+            IncrementalSchemas schemas = new IncrementalSchemas(classes);
+            schemas.getSchemas();
+            long misses = JAXBContextCache.getMisses();
+
+            // e.g. by a debugger; T5 is not a root, but only referred to
+            schemas.update(classes, Collections.singleton(generator.className(5)));
+
+            assertThat(JAXBContextCache.getMisses()).isEqualTo(misses + 1);
+            assertThat(schemas.getIntrospections()).isEqualTo(10 + 1);
+        }
+    }
+
+    private static void assertSameAsFresh(Map<String, SchemaCache.Schema> schemas, Class<?>... classes) throws Exception {
+        Map<String, SchemaCache.Schema> fresh = new SchemaCache().get(classes);
+        assertThat(schemas).containsOnlyKeys(fresh.keySet());
+        for (Map.Entry<String, SchemaCache.Schema> e : fresh.entrySet()) {
+            assertThat(schemas.get(e.getKey()).getHash()).as(e.getKey() + " of " + Arrays.toString(classes)).isEqualTo(e.getValue().getHash());
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.OutputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class JfrEventsTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void record() throws Exception {
+        Path file = dir.resolve("recording.jfr");
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+        try (Recording recording = new Recording()) {
+            for (String event : List.of("CreateTransformer", "CollectDocumentation", "Transform", "SchemaGeneration")) {
+                recording.enable("org.meeuw.jaxbdocumentation." + event).withoutThreshold();
+            }
+            recording.start();
+
+            adder.write();
+
+            DocumentationAdder streaming = new DocumentationAdder(DocumentationAdderTest.A.class, DocumentationAdderTest.OtherNamespace.class);
+            streaming.setUseCache(true);
+            Utils.writeDocumentationSchemas(streaming, ns -> OutputStream.nullOutputStream());
+
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file).stream()
+            .filter(e -> e.getEventType().getName().startsWith("org.meeuw.jaxbdocumentation."))
+            .collect(Collectors.toList());
+
+        assertThat(named(events, "CreateTransformer").stream().map(e -> e.getInt("classes"))).containsExactly(1, 2);
+
+        List<RecordedEvent> collect = named(events, "CollectDocumentation");
+        assertThat(collect).hasSize(2);
+        assertThat(collect.get(0).getString("cache")).isEqualTo("DISABLED");
+        assertThat(collect.get(0).getInt("documentationKeys")).isEqualTo(adder.getDocumentations().size());
+        assertThat(collect.get(0).getInt("visited")).isGreaterThanOrEqualTo(5);
+        assertThat(collect.get(1).getString("cache")).isIn("HIT", "MISS");
+        assertThat(collect.get(1).getInt("classes")).isEqualTo(2);
+
+        List<RecordedEvent> transforms = named(events, "Transform");
+        // OtherNamespace also results in a schema without namespace
+        assertThat(transforms).hasSize(4);
+        assertThat(transforms.stream().map(e -> e.getString("namespace")))
+            .contains(DocumentationAdderTest.NS, DocumentationAdderTest.NS2);
+        assertThat(transforms.get(0).getString("engine")).isEqualTo("XSLT");
+
+        List<RecordedEvent> generations = named(events, "SchemaGeneration");
+        assertThat(generations).hasSize(2);
+        assertThat(generations.get(0).getInt("namespaces")).isEqualTo(1);
+        assertThat(generations.get(1).getInt("classes")).isEqualTo(2);
+        assertThat(generations.get(1).getInt("namespaces")).isEqualTo(3);
+        assertThat(generations.get(1).getLong("bytes")).isGreaterThan(0);
+    }
+
+    private static List<RecordedEvent> named(List<RecordedEvent> events, String name) {
+        return events.stream()
+            .filter(e -> e.getEventType().getName().equals("org.meeuw.jaxbdocumentation." + name))
+            .sorted((a, b) -> a.getStartTime().compareTo(b.getStartTime()))
+            .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,251 @@
+package org.meeuw.jaxbdocumentation;
+
+import jakarta.xml.bind.annotation.XmlElement;
+import lombok.Builder;
+import lombok.Getter;
+
+import java.io.*;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import javax.tools.*;
+
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+
+/**
+ * Generates (sources for, compiles, and loads) JAXB annotated models of arbitrary size, for tests and benchmarks which need more than a few classes.
+ * <p>
+ * Type {@code Ti} lives in namespace {@code i % namespaces}, has an {@link XmlDocumentation}, a documented attribute, and {@link #elementsPerType} documented elements, referring to the types {@code T(elementsPerType * i + 1)} and on (so, the types form a tree, rooted at {@code T0}). Further:
+ * <ul>
+ *     <li>{@link #transientDepth}: every type extends a chain of this many {@link jakarta.xml.bind.annotation.XmlTransient} classes, each contributing a documented attribute {@code pk}</li>
+ *     <li>{@link #choices}: every type has an {@link jakarta.xml.bind.annotation.XmlElements} property {@code choice} with this many documented elements {@code ck}, referring to the ancestors of the type in the tree (so that the references, and e.g. the recursion in JAXB, don't get very deep)</li>
+ *     <li>{@link #enums}: the number of documented enums {@code Ej} (with {@link #enumValues} documented values), each type has an element {@code en} of one of them</li>
+ *     <li>{@link #revised}: the type of which the documentation is different (a 'revised' version of the model, e.g. to test reloading)</li>
+ * </ul>
+ * See {@link #documentations()} for the number of documentation keys this results in.
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+@Builder
+public class ModelGenerator {
+
+    public static final String PACKAGE = "org.meeuw.generated";
+
+    @Builder.Default
+    private final int types = 100;
+    @Builder.Default
+    private final int namespaces = 1;
+    @Builder.Default
+    private final int elementsPerType = 5;
+    @Builder.Default
+    private final int transientDepth = 0;
+    @Builder.Default
+    private final int choices = 0;
+    @Builder.Default
+    private final int enums = 0;
+    @Builder.Default
+    private final int enumValues = 10;
+    @Builder.Default
+    private final int revised = -1;
+
+    public static String namespace(int ns) {
+        return "http://meeuw.org/generated/" + ns;
+    }
+
+    public Model generate() {
+        try {
+            Path directory = Files.createTempDirectory("model");
+            Path sources = directory.resolve("src");
+            Path classes = Files.createDirectories(directory.resolve("classes"));
+            List<Path> files = new ArrayList<>();
+            for (int ns = 0; ns < namespaces; ns++) {
+                files.add(write(sources, ns, "package-info",
+                    "@jakarta.xml.bind.annotation.XmlSchema(namespace = \"" + namespace(ns) + "\")\n" +
+                    "package " + packageName(ns) + ";\n"));
+            }
+            for (int i = 0; i < types; i++) {
+                files.add(write(sources, i % namespaces, "T" + i, type(i)));
+            }
+            for (int ns = 0; ns < namespaces && transientDepth > 0; ns++) {
+                for (int k = 0; k < transientDepth; k++) {
+                    files.add(write(sources, ns, "Transient" + k, transientType(ns, k)));
+                }
+            }
+            for (int j = 0; j < enums; j++) {
+                files.add(write(sources, j % namespaces, "E" + j, enumType(j)));
+            }
+            compile(files, classes);
+            return new Model(directory, classes, types, namespaces);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * @return The number of documentation keys the generated model has (if all types are reachable)
+     */
+    public int documentations() {
+        int perType = 1 + elementsPerType + 1 + transientDepth + choices + (enums > 0 ? 1 : 0);
+        return types * perType + enums * (1 + enumValues);
+    }
+
+    private String type(int i) {
+        StringBuilder source = header(i % namespaces)
+            .append("@XmlAccessorType(XmlAccessType.FIELD)\n")
+            .append("@XmlDocumentation(\"").append(i == revised ? "revised " : "").append("documentation of type ").append(i).append("\")\n")
+            .append("public class T").append(i).append(transientDepth > 0 ? " extends Transient0" : "").append(" {\n");
+        for (int e = 0; e < elementsPerType; e++) {
+            int child = elementsPerType * i + 1 + e;
+            source.append("    @XmlElement @XmlDocumentation(\"element ").append(e).append(" of type ").append(i).append("\")\n")
+                .append("    public ").append(child < types ? className(child) : "String").append(" e").append(e).append(";\n");
+        }
+        int width = choices;
+        if (width > 0) {
+            StringBuilder elements = new StringBuilder();
+            StringBuilder documentations = new StringBuilder();
+            for (int k = 0; k < width; k++) {
+                String separator = k == 0 ? "" : ", ";
+                elements.append(separator).append("@XmlElement(name = \"c").append(k).append("\", type = ").append(className(ancestor(i, k + 1))).append(".class)");
+                documentations.append(separator).append("@XmlDocumentation(name = \"c").append(k).append("\", value = \"choice ").append(k).append(" of type ").append(i).append("\")");
+            }
+            source.append("    @XmlElements({").append(elements).append("})\n")
+                .append("    @XmlDocumentations({").append(documentations).append("})\n")
+                .append("    public java.util.List<Object> choice;\n");
+        }
+        if (enums > 0) {
+            source.append("    @XmlElement @XmlDocumentation(\"enum of type ").append(i).append("\")\n")
+                .append("    public ").append(packageName((i % enums) % namespaces)).append(".E").append(i % enums).append(" en;\n");
+        }
+        source.append("    @XmlAttribute @XmlDocumentation(\"attribute of type ").append(i).append("\")\n")
+            .append("    public String a;\n")
+            .append("}\n");
+        return source.toString();
+    }
+
+    /**
+     * @return The {@code generations}th ancestor of {@code Ti} in the tree, or {@code T0}
+     */
+    private int ancestor(int i, int generations) {
+        for (int g = 0; g < generations && i > 0 && elementsPerType > 0; g++) {
+            i = (i - 1) / elementsPerType;
+        }
+        return i;
+    }
+
+    private String transientType(int ns, int k) {
+        return header(ns)
+            .append("@XmlTransient\n")
+            .append("@XmlAccessorType(XmlAccessType.FIELD)\n")
+            .append("public class Transient").append(k).append(k + 1 < transientDepth ? " extends Transient" + (k + 1) : "").append(" {\n")
+            .append("    @XmlAttribute @XmlDocumentation(\"inherited attribute ").append(k).append("\")\n")
+            .append("    public String p").append(k).append(";\n")
+            .append("}\n")
+            .toString();
+    }
+
+    private String enumType(int j) {
+        StringBuilder source = header(j % namespaces)
+            .append("@XmlDocumentation(\"documentation of enum ").append(j).append("\")\n")
+            .append("public enum E").append(j).append(" {\n");
+        for (int v = 0; v < enumValues; v++) {
+            source.append("    @XmlDocumentation(\"value ").append(v).append(" of enum ").append(j).append("\")\n")
+                .append("    V").append(v).append(v + 1 < enumValues ? ",\n" : ";\n");
+        }
+        return source.append("}\n").toString();
+    }
+
+    private StringBuilder header(int ns) {
+        return new StringBuilder()
+            .append("package ").append(packageName(ns)).append(";\n")
+            .append("import jakarta.xml.bind.annotation.*;\n")
+            .append("import org.meeuw.xml.bind.annotation.XmlDocumentation;\n")
+            .append("import org.meeuw.xml.bind.annotation.XmlDocumentations;\n");
+    }
+
+    public String className(int i) {
+        return packageName(i % namespaces) + ".T" + i;
+    }
+
+    private static String packageName(int ns) {
+        return PACKAGE + ".ns" + ns;
+    }
+
+    private static Path write(Path sources, int ns, String name, String source) throws IOException {
+        Path dir = Files.createDirectories(sources.resolve(packageName(ns).replace('.', File.separatorChar)));
+        return Files.write(dir.resolve(name + ".java"), source.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static void compile(List<Path> files, Path output) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = Stream.of(XmlElement.class, XmlDocumentation.class)
+            .map(ModelGenerator::location)
+            .collect(Collectors.joining(File.pathSeparator));
+        StringWriter messages = new StringWriter();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(null, null, StandardCharsets.UTF_8)) {
+            JavaCompiler.CompilationTask task = compiler.getTask(messages, fileManager, null,
+                Arrays.asList("-classpath", classPath, "-d", output.toString(), "-proc:none"),
+                null, fileManager.getJavaFileObjectsFromPaths(files));
+            if (!task.call()) {
+                throw new IllegalStateException("Could not compile generated model: " + messages);
+            }
+        }
+    }
+
+    private static String location(Class<?> clazz) {
+        try {
+            return Paths.get(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).toString();
+        } catch (URISyntaxException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * A compiled model. The classes can be loaded several times ({@link #load()}), e.g. to measure with cold caches.
+     */
+    public static class Model implements AutoCloseable {
+        @Getter
+        private final Path directory;
+        private final Path classes;
+        @Getter
+        private final int size;
+        @Getter
+        private final int namespaces;
+
+        private Model(Path directory, Path classes, int size, int namespaces) {
+            this.directory = directory;
+            this.classes = classes;
+            this.size = size;
+            this.namespaces = namespaces;
+        }
+
+        /**
+         * Loads all types of the model, in a new class loader.
+         */
+        public Class<?>[] load() {
+            try {
+                ClassLoader loader = new URLClassLoader(new URL[]{classes.toUri().toURL()}, ModelGenerator.class.getClassLoader());
+                Class<?>[] result = new Class<?>[size];
+                for (int i = 0; i < size; i++) {
+                    result[i] = loader.loadClass(packageName(i % namespaces) + ".T" + i);
+                }
+                return result;
+            } catch (IOException | ClassNotFoundException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.IOException;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class ModelGeneratorTest {
+
+    @Test
+    public void generate() throws IOException {
+        ModelGenerator generator = ModelGenerator.builder().types(20).namespaces(2).build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            Class<?>[] classes = model.load();
+            assertThat(classes).hasSize(20);
+            assertThat(model.load()[0]).isNotSameAs(classes[0]);
+
+            // T0 is the root of the tree, so all types are found from it
+            Map<String, String> documentations = new DocumentationAdder(classes[0]).getDocumentations();
+            assertThat(documentations).hasSize(generator.documentations());
+            assertThat(documentations).hasSize(20 * (1 + 5 + 1));
+            assertThat(documentations).containsEntry("{" + ModelGenerator.namespace(1) + "}t19", "documentation of type 19");
+            assertThat(documentations).containsEntry("{" + ModelGenerator.namespace(0) + "}t0|ELEMENT|e0", "element 0 of type 0");
+        }
+    }
+
+    @Test
+    public void generateWithAllFeatures() throws Exception {
+        ModelGenerator generator = ModelGenerator.builder()
+            .types(30)
+            .namespaces(3)
+            .transientDepth(3)
+            .choices(4)
+            .enums(5)
+            .enumValues(3)
+            .build();
+        try (ModelGenerator.Model model = generator.generate()) {
+            Class<?>[] classes = model.load();
+            Map<String, String> documentations = new DocumentationAdder(classes).getDocumentations();
+            assertThat(documentations).hasSize(generator.documentations());
+            String t4 = "{" + ModelGenerator.namespace(1) + "}t4";
+            assertThat(documentations).containsEntry(t4 + "|ATTRIBUTE|p2", "inherited attribute 2");
+            assertThat(documentations).containsEntry(t4 + "|ELEMENT|c3", "choice 3 of type 4");
+            assertThat(documentations).containsEntry(t4 + "|ELEMENT|en", "enum of type 4");
+            assertThat(documentations).containsEntry("{" + ModelGenerator.namespace(1) + "}e4|ENUMERATION|V2", "value 2 of enum 4");
+
+            // and JAXB accepts it
+            assertThat(Utils.schemaSources(classes)).hasSize(3);
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import javax.xml.transform.Source;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Checks that time and allocation grow (about) linearly with the size of the model. The large model is 8 times the small one, so something quadratic would be 64 times as expensive. Allocation is measured exactly (per thread), so its budget is tight. Time is noisy, so its budget is loose, and it is only checked by the tests tagged {@code timing}, which only run with the {@code timing} profile ({@code mvn test -Ptiming}).
+ *
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+public class ScaleTest {
+
+    static final int SMALL = 250;
+    static final int LARGE = 8 * SMALL;
+
+    static final double TIME_BUDGET = 24;
+    static final double ALLOCATION_BUDGET = 12;
+
+    static ModelGenerator.Model small;
+    static ModelGenerator.Model large;
+
+    @BeforeAll
+    public static void generate() {
+        small = generator(SMALL).generate();
+        large = generator(LARGE).generate();
+    }
+
+    @AfterAll
+    public static void close() throws Exception {
+        small.close();
+        large.close();
+    }
+
+    static ModelGenerator generator(int types) {
+        return ModelGenerator.builder()
+            .types(types)
+            .namespaces(4)
+            .transientDepth(3)
+            .choices(3)
+            .enums(types / 20)
+            .build();
+    }
+
+    @Test
+    public void introspectionAllocation() throws Exception {
+        assertAllocation("introspection", introspection());
+    }
+
+    @Test
+    @Tag("timing")
+    public void introspectionTime() throws Exception {
+        assertTime("introspection", introspection());
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void transformAllocation(DocumentationAdder.Engine engine) throws Exception {
+        assertAllocation("transform " + engine, transform(engine));
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    @Tag("timing")
+    public void transformTime(DocumentationAdder.Engine engine) throws Exception {
+        assertTime("transform " + engine, transform(engine));
+    }
+
+    /**
+     * @return The measurements of collecting the documentation of the small and of the large model
+     */
+    private static Measurement[] introspection() throws Exception {
+        // warm up
+        measure(() -> new DocumentationAdder(small.load()).getDocumentations());
+
+        Class<?>[] smallClasses = small.load();
+        Measurement smallMeasurement = measure(() -> new DocumentationAdder(smallClasses).getDocumentations());
+        Class<?>[] largeClasses = large.load();
+        Measurement largeMeasurement = measure(() -> new DocumentationAdder(largeClasses).getDocumentations());
+
+        assertThat(smallMeasurement.result).hasSize(generator(SMALL).documentations());
+        assertThat(largeMeasurement.result).hasSize(generator(LARGE).documentations());
+        return new Measurement[] {smallMeasurement, largeMeasurement};
+    }
+
+    /**
+     * @return The measurements of adding the documentation to the schemas of the small and of the large model
+     */
+    private static Measurement[] transform(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder smallAdder = adder(engine, small.load());
+        DocumentationAdder largeAdder = adder(engine, large.load());
+        List<byte[]> smallSchemas = schemas(smallAdder.getClasses());
+        List<byte[]> largeSchemas = schemas(largeAdder.getClasses());
+
+        // warm up
+        transform(smallAdder, smallSchemas);
+
+        Measurement smallMeasurement = measure(() -> transform(smallAdder, smallSchemas));
+        Measurement largeMeasurement = measure(() -> transform(largeAdder, largeSchemas));
+        return new Measurement[] {smallMeasurement, largeMeasurement};
+    }
+
+    /**
+     * @return An adder with the documentation already collected, so that only the transformation is measured
+     */
+    private static DocumentationAdder adder(DocumentationAdder.Engine engine, Class<?>[] classes) {
+        DocumentationAdder adder = new DocumentationAdder(classes);
+        adder.setEngine(engine);
+        adder.getDocumentations();
+        return adder;
+    }
+
+    private static Object transform(DocumentationAdder adder, List<byte[]> schemas) throws Exception {
+        for (byte[] schema : schemas) {
+            adder.transform(new StreamSource(new ByteArrayInputStream(schema)), new StreamResult(OutputStream.nullOutputStream()));
+        }
+        return adder;
+    }
+
+    private static List<byte[]> schemas(Class<?>[] classes) throws Exception {
+        List<byte[]> result = new ArrayList<>();
+        for (Map.Entry<String, Source> e : Utils.schemaSources(classes).entrySet()) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            TransformerFactory.newDefaultInstance().newTransformer().transform(e.getValue(), new StreamResult(bytes));
+            result.add(bytes.toByteArray());
+        }
+        return result;
+    }
+
+    private static void assertAllocation(String phase, Measurement[] measurements) {
+        double ratio = (double) measurements[1].bytes / measurements[0].bytes;
+        assertThat(ratio).as("allocation of %s (%s)", phase, describe(measurements)).isLessThan(ALLOCATION_BUDGET);
+    }
+
+    private static void assertTime(String phase, Measurement[] measurements) {
+        double ratio = (double) measurements[1].nanos / measurements[0].nanos;
+        assertThat(ratio).as("time of %s (%s)", phase, describe(measurements)).isLessThan(TIME_BUDGET);
+    }
+
+    private static String describe(Measurement[] measurements) {
+        return String.format("%d types: %d ms, %d kB; %d types: %d ms, %d kB",
+            SMALL, measurements[0].nanos / 1_000_000, measurements[0].bytes / 1024,
+            LARGE, measurements[1].nanos / 1_000_000, measurements[1].bytes / 1024);
+    }
+
+    private static <T> Measurement measure(Callable<T> callable) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        long bytes = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        T result = callable.call();
+        long nanos = System.nanoTime() - start;
+        return new Measurement(nanos, threads.getThreadAllocatedBytes(thread) - bytes, result);
+    }
+
+    static class Measurement {
+        final long nanos;
+        final long bytes;
+        final Map<String, String> result;
+
+        @SuppressWarnings("unchecked")
+        Measurement(long nanos, long bytes, Object result) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+            this.result = result instanceof Map ? (Map<String, String>) result : null;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class SchemaCacheTest {
+
+    @Test
+    public void cache() throws Exception {
+        SchemaCache cache = new SchemaCache();
+        Map<String, SchemaCache.Schema> schemas = cache.get(DocumentationAdderTest.OtherNamespace.class);
+        assertThat(schemas.keySet()).containsExactlyInAnyOrder(DocumentationAdderTest.NS, DocumentationAdderTest.NS2, "schema3.xsd");
+        SchemaCache.Schema schema = schemas.get(DocumentationAdderTest.NS2);
+        assertThat(new String(schema.getBytes(), StandardCharsets.UTF_8)).contains("referring to a");
+        assertThat(schema.getETag()).matches("\"[0-9a-f]{64}\"");
+        assertThat(schema.getETag()).isNotEqualTo(schemas.get(DocumentationAdderTest.NS).getETag());
+        assertThat(schema.asByteBuffer().remaining()).isEqualTo(schema.getBytes().length);
+
+        assertThat(cache.get(DocumentationAdderTest.NS2, DocumentationAdderTest.OtherNamespace.class)).isSameAs(schema);
+        assertThat(cache.getHits()).isEqualTo(1);
+        assertThat(cache.getMisses()).isEqualTo(1);
+        assertThat(cache.getBytes()).isGreaterThan(schema.getBytes().length);
+
+        cache.invalidate(DocumentationAdderTest.OtherNamespace.class);
+        assertThat(cache.getBytes()).isEqualTo(0);
+        SchemaCache.Schema regenerated = cache.get(DocumentationAdderTest.NS2, DocumentationAdderTest.OtherNamespace.class);
+        assertThat(regenerated).isNotSameAs(schema);
+        assertThat(regenerated.getETag()).isEqualTo(schema.getETag());
+        assertThat(cache.getMisses()).isEqualTo(2);
+    }
+
+    @Test
+    public void budget() throws Exception {
+        SchemaCache cache = new SchemaCache(1);
+        cache.get(DocumentationAdderTest.A.class);
+        cache.get(DocumentationAdderTest.B.class);
+        assertThat(cache.getEvictions()).isEqualTo(1);
+        cache.get(DocumentationAdderTest.B.class);
+        assertThat(cache.getHits()).isEqualTo(1);
+        cache.get(DocumentationAdderTest.A.class);
+        assertThat(cache.getMisses()).isEqualTo(3);
+    }
+}
@@ -0,0 +1,120 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Map;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import jakarta.xml.bind.annotation.*;
+import javax.xml.transform.Source;
+import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.meeuw.xml.bind.annotation.XmlDocumentation;
+import org.xmlunit.assertj3.XmlAssert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class SchemaPipelineTest {
+
+    public static final String NS = "http://meeuw.org/pipeline";
+
+    @XmlDocumentation("a documented and constrained type")
+    @XmlType(namespace = NS)
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class A {
+
+        @XmlAttribute
+        @NotNull
+        @XmlDocumentation("a required attribute")
+        String id;
+
+        @XmlElement
+        @Size(max = 20)
+        @XmlDocumentation("a short title")
+        String title;
+
+        @XmlElement
+        @XmlDocumentation("no constraints")
+        int number;
+    }
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void sameAsSeparately(DocumentationAdder.Engine engine) throws Exception {
+        UpdateTypes updateTypes = new UpdateTypes(A.class);
+        DocumentationAdder adder = new DocumentationAdder(A.class);
+        adder.setEngine(engine);
+        Source schema = Utils.schemaSources(A.class).get(NS);
+
+        SchemaPipeline pipeline = SchemaPipeline.builder()
+            .constraints(updateTypes)
+            .documentation(adder)
+            .xmlStyleSheet("xs3p.xsl")
+            .build();
+        StringWriter inOnePass = new StringWriter();
+        pipeline.transform(schema, new StreamResult(inOnePass));
+
+        StringWriter constrained = new StringWriter();
+        updateTypes.transform(Utils.schemaSources(A.class).get(NS), new StreamResult(constrained));
+        adder.setXmlStyleSheet("xs3p.xsl");
+        StringWriter separately = new StringWriter();
+        adder.transform(new StreamSource(new StringReader(constrained.toString())), new StreamResult(separately));
+
+        assertThat(inOnePass.toString()).contains("<?xml-stylesheet href=\"xs3p.xsl\" type=\"text/xsl\"?>");
+        assertThat(inOnePass.toString()).contains("<xs:documentation>a short title</xs:documentation>");
+        assertThat(inOnePass.toString()).contains("<xs:maxLength value=\"20\"/>");
+        XmlAssert.assertThat(inOnePass.toString()).and(separately.toString())
+            .ignoreWhitespace()
+            .areIdentical();
+    }
+
+    @Test
+    public void orderOfStages() throws Exception {
+        SchemaPipeline documentationFirst = SchemaPipeline.builder()
+            .documentation(new DocumentationAdder(A.class))
+            .constraints(new UpdateTypes(A.class))
+            .build();
+        SchemaPipeline constraintsFirst = SchemaPipeline.builder()
+            .constraints(new UpdateTypes(A.class))
+            .documentation(new DocumentationAdder(A.class))
+            .build();
+        StringWriter first = new StringWriter();
+        documentationFirst.transform(Utils.schemaSources(A.class).get(NS), new StreamResult(first));
+        StringWriter second = new StringWriter();
+        constraintsFirst.transform(Utils.schemaSources(A.class).get(NS), new StreamResult(second));
+        XmlAssert.assertThat(first.toString()).and(second.toString())
+            .ignoreWhitespace()
+            .areIdentical();
+    }
+
+    @Test
+    public void resultPerNamespace() throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.OtherNamespace.class);
+        SchemaPipeline pipeline = SchemaPipeline.builder()
+            .documentation(adder)
+            .build();
+        Map<String, StreamResult> results = pipeline.transformAll(Utils.schemaSources(adder.getClasses()), ns -> new StreamResult(new StringWriter()));
+
+        assertThat(results).hasSize(3);
+        StringWriter all = new StringWriter();
+        for (StreamResult result : results.values()) {
+            all.write(result.getWriter().toString());
+        }
+        assertThat(all.toString()).isEqualTo(adder.write());
+    }
+
+    @Test
+    public void noStages() throws Exception {
+        StringWriter copy = new StringWriter();
+        SchemaPipeline.builder().build().transform(Utils.schemaSources(A.class).get(NS), new StreamResult(copy));
+        assertThat(copy.toString()).contains("<xs:complexType name=\"a\">");
+        assertThat(copy.toString()).doesNotContain("xs:annotation");
+    }
+}
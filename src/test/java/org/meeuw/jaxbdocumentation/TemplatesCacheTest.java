@@ -0,0 +1,138 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.lang.ref.WeakReference;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.xml.transform.*;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class TemplatesCacheTest {
+
+    @Test
+    public void compiledOncePerFactory() {
+        CountingTransformerFactory factory = new CountingTransformerFactory();
+        for (int i = 0; i < 10; i++) {
+            DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+            adder.setTransformerFactory(factory);
+            assertThat(adder.get()).isNotNull();
+        }
+        assertThat(factory.compilations.get()).isEqualTo(1);
+
+        UpdateTypes updateTypes = new UpdateTypes(UpdateTypesTest.A.class);
+        updateTypes.setTransformerFactory(factory);
+        updateTypes.get();
+        updateTypes = new UpdateTypes(UpdateTypesTest.A.class);
+        updateTypes.setTransformerFactory(factory);
+        updateTypes.get();
+        assertThat(factory.compilations.get()).isEqualTo(2);
+
+        CountingTransformerFactory otherFactory = new CountingTransformerFactory();
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+        adder.setTransformerFactory(otherFactory);
+        adder.get();
+        assertThat(otherFactory.compilations.get()).isEqualTo(1);
+        assertThat(factory.compilations.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void factoriesAreCollected() throws Exception {
+        TransformerFactory factory = TransformerFactory.newDefaultInstance();
+        TemplatesCache.get(factory, "/update-types.xslt");
+        WeakReference<TransformerFactory> reference = new WeakReference<>(factory);
+        factory = null;
+        // e.g. a new factory per request
+        for (int i = 0; i < TemplatesCache.MAX_FACTORIES; i++) {
+            TemplatesCache.get(TransformerFactory.newDefaultInstance(), "/update-types.xslt");
+        }
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertThat(reference.get()).isNull();
+    }
+
+    @Test
+    public void defaultFactory() {
+        assertThat(TemplatesCache.get("/add-documentation.xslt"))
+            .isSameAs(TemplatesCache.get(TemplatesCache.getDefaultFactory(), "/add-documentation.xslt"));
+    }
+
+    @Test
+    public void defaultFactoryIsTheJdks() {
+        // xalan (an optional dependency, for TransletEngine) is on the class path, and registers itself as the JAXP default
+        assertThat(TransformerFactory.newInstance().getClass().getName()).startsWith("org.apache.xalan.");
+        assertThat(TemplatesCache.newDefaultFactory()).isExactlyInstanceOf(TransformerFactory.newDefaultInstance().getClass());
+    }
+
+    static class CountingTransformerFactory extends TransformerFactory {
+        final TransformerFactory wrapped = TransformerFactory.newDefaultInstance();
+        final AtomicInteger compilations = new AtomicInteger();
+
+        @Override
+        public Transformer newTransformer(Source source) throws TransformerConfigurationException {
+            compilations.incrementAndGet();
+            return wrapped.newTransformer(source);
+        }
+
+        @Override
+        public Transformer newTransformer() throws TransformerConfigurationException {
+            return wrapped.newTransformer();
+        }
+
+        @Override
+        public Templates newTemplates(Source source) throws TransformerConfigurationException {
+            compilations.incrementAndGet();
+            return wrapped.newTemplates(source);
+        }
+
+        @Override
+        public Source getAssociatedStylesheet(Source source, String media, String title, String charset) throws TransformerConfigurationException {
+            return wrapped.getAssociatedStylesheet(source, media, title, charset);
+        }
+
+        @Override
+        public void setURIResolver(URIResolver resolver) {
+            wrapped.setURIResolver(resolver);
+        }
+
+        @Override
+        public URIResolver getURIResolver() {
+            return wrapped.getURIResolver();
+        }
+
+        @Override
+        public void setFeature(String name, boolean value) throws TransformerConfigurationException {
+            wrapped.setFeature(name, value);
+        }
+
+        @Override
+        public boolean getFeature(String name) {
+            return wrapped.getFeature(name);
+        }
+
+        @Override
+        public void setAttribute(String name, Object value) {
+            wrapped.setAttribute(name, value);
+        }
+
+        @Override
+        public Object getAttribute(String name) {
+            return wrapped.getAttribute(name);
+        }
+
+        @Override
+        public void setErrorListener(ErrorListener listener) {
+            wrapped.setErrorListener(listener);
+        }
+
+        @Override
+        public ErrorListener getErrorListener() {
+            return wrapped.getErrorListener();
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.xml.transform.TransformerFactory;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.xmlunit.assertj3.XmlAssert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class TransletEngineTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    public void precompiled() throws Exception {
+        // as packaged by the build
+        TransletEngine engine = new TransletEngine();
+        try {
+            TemplatesCache.setDefaultEngine(engine);
+            DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+            String result = adder.write();
+
+            DocumentationAdder compiled = new DocumentationAdder(DocumentationAdderTest.A.class);
+            compiled.setTransformerFactory(TransformerFactory.newDefaultInstance());
+            XmlAssert.assertThat(result).and(compiled.write()).areIdentical();
+            assertThat(result).contains("some docu about a");
+        } finally {
+            TemplatesCache.setDefaultEngine(null);
+        }
+        assertThat(engine.getPrecompiled()).isEqualTo(1);
+        assertThat(engine.getCompiled()).isZero();
+    }
+
+    @Test
+    public void precompile() throws Exception {
+        Path file = TransletEngine.precompile(directory, "test.translets", "/update-types.xslt");
+        assertThat(file).exists();
+
+        TransletEngine engine = engine("test.translets");
+        assertThat(engine.newTemplates("/update-types.xslt").newTransformer()).isNotNull();
+        assertThat(engine.getPrecompiled()).isEqualTo(1);
+        assertThat(engine.getCompiled()).isZero();
+    }
+
+    @Test
+    public void notPrecompiled() throws Exception {
+        TransletEngine engine = engine("test.none");
+        assertThat(TemplatesCache.get(engine, "/update-types.xslt").newTransformer()).isNotNull();
+        assertThat(TemplatesCache.get(engine, "/update-types.xslt")).isNotNull();
+        assertThat(engine.getCompiled()).isEqualTo(1);
+        assertThat(engine.getPrecompiled()).isZero();
+    }
+
+    @Test
+    public void corrupt() throws Exception {
+        Path file = directory.resolve("test/corrupt").resolve(TransletEngine.transletName("/update-types.xslt") + ".class");
+        Files.createDirectories(file.getParent());
+        // not the class it should be
+        try (InputStream in = getClass().getResourceAsStream(getClass().getSimpleName() + ".class")) {
+            Files.copy(in, file);
+        }
+
+        TransletEngine engine = engine("test.corrupt");
+        assertThat(engine.newTemplates("/update-types.xslt").newTransformer()).isNotNull();
+        assertThat(engine.getCompiled()).isEqualTo(1);
+        assertThat(engine.getPrecompiled()).isZero();
+    }
+
+    @Test
+    public void transletName() throws Exception {
+        assertThat(TransletEngine.transletName(Xs3pRenderer.XS3P)).matches("xs3p_xsl_[0-9a-f]{12}");
+    }
+
+    @Test
+    public void notDefault() {
+        assertThat(TemplatesCache.getDefaultEngine()).isNotInstanceOf(TransletEngine.class);
+    }
+
+    private TransletEngine engine(String packageName) throws Exception {
+        return new TransletEngine(new URLClassLoader(new URL[] {directory.toUri().toURL()}, getClass().getClassLoader()), packageName);
+    }
+}
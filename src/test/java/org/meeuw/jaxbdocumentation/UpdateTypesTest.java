@@ -1,34 +1,100 @@
 package org.meeuw.jaxbdocumentation;
 
 import java.io.IOException;
+import java.io.StringReader;
 import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Map;
-import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.*;
 import jakarta.xml.bind.JAXBException;
-import jakarta.xml.bind.annotation.XmlAttribute;
-import jakarta.xml.bind.annotation.XmlType;
+import jakarta.xml.bind.annotation.*;
+import javax.xml.XMLConstants;
 import javax.xml.transform.Source;
 import javax.xml.transform.TransformerException;
 import javax.xml.transform.stream.StreamResult;
+import javax.xml.transform.stream.StreamSource;
+import javax.xml.validation.SchemaFactory;
 import org.junit.jupiter.api.Test;
+import org.xml.sax.SAXException;
 import org.xmlunit.assertj3.XmlAssert;
 
+import static org.assertj.core.api.Assertions.assertThat;
+
 /**
  * @author Michiel Meeuwissen
- * @since ...
+ * @since 0.4
  */
 class UpdateTypesTest {
 
     public static final String NS = "http://meeuw.org/a";
 
     @XmlType(namespace = NS)
+    @XmlAccessorType(XmlAccessType.FIELD)
     public static class A {
 
         @XmlAttribute
         @Pattern(regexp = "[a-z]{3,}")
         String attr;
+
+        @XmlAttribute
+        @NotNull
+        String required;
+
+        @XmlElement
+        @Size(min = 1, max = 10)
+        @NotNull
+        String name;
+
+        @XmlElement
+        @Min(1)
+        @Max(100)
+        int number;
+
+        @XmlElement
+        @Digits(integer = 5, fraction = 2)
+        BigDecimal amount;
+
+        @XmlElement(name = "item")
+        @Size(max = 3)
+        List<String> items;
+
+        @XmlElement
+        B b;
     }
 
+    @XmlType(namespace = NS)
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class B {
+        @XmlAttribute
+        @Pattern(regexp = "^[0-9]+$")
+        String code;
+
+        // not a built-in type, so only the occurrence can be restricted
+        @XmlElement
+        @NotNull
+        A a;
+    }
+
+    @XmlType(namespace = NS)
+    @XmlAccessorType(XmlAccessType.FIELD)
+    public static class C {
+        @XmlAttribute
+        @Pattern(regexp = "(?i)[a-z]+")
+        String caseInsensitive;
+
+        @XmlAttribute
+        @Pattern(regexp = "[a-z]+", flags = Pattern.Flag.CASE_INSENSITIVE)
+        String flagged;
+
+        @XmlAttribute
+        @Digits(integer = 3, fraction = 1)
+        Integer count;
+
+        @XmlAttribute
+        @Pattern(regexp = "\\$[0-9]+(\\.[0-9]{2})?")
+        String price;
+    }
 
     @Test
     public void updateTypes() throws JAXBException, IOException, TransformerException {
@@ -40,18 +106,93 @@ class UpdateTypesTest {
             collector.get().transform(sourceEntry.getValue(), new StreamResult(writer));
         }
         XmlAssert.assertThat(writer.toString()).and("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
-            "<xs:schema targetNamespace=\"http://meeuw.org/a\" version=\"1.0\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\n" +
+            "<xs:schema targetNamespace=\"http://meeuw.org/a\" version=\"1.0\" xmlns:tns=\"http://meeuw.org/a\" xmlns:xs=\"http://www.w3.org/2001/XMLSchema\">\n" +
             "    <xs:complexType name=\"a\">\n" +
-            "        <xs:sequence/>\n" +
-            "        <xs:attribute name=\"attr\" type=\"xs:string\"/>\n" +
+            "        <xs:sequence>\n" +
+            "            <xs:element name=\"name\" minOccurs=\"1\">\n" +
+            "                <xs:simpleType><xs:restriction base=\"xs:string\"><xs:minLength value=\"1\"/><xs:maxLength value=\"10\"/></xs:restriction></xs:simpleType>\n" +
+            "            </xs:element>\n" +
+            "            <xs:element name=\"number\">\n" +
+            "                <xs:simpleType><xs:restriction base=\"xs:int\"><xs:minInclusive value=\"1\"/><xs:maxInclusive value=\"100\"/></xs:restriction></xs:simpleType>\n" +
+            "            </xs:element>\n" +
+            "            <xs:element name=\"amount\" minOccurs=\"0\">\n" +
+            "                <xs:simpleType><xs:restriction base=\"xs:decimal\"><xs:totalDigits value=\"7\"/><xs:fractionDigits value=\"2\"/></xs:restriction></xs:simpleType>\n" +
+            "            </xs:element>\n" +
+            "            <xs:element name=\"item\" type=\"xs:string\" minOccurs=\"0\" maxOccurs=\"3\"/>\n" +
+            "            <xs:element name=\"b\" type=\"tns:b\" minOccurs=\"0\"/>\n" +
+            "        </xs:sequence>\n" +
+            "        <xs:attribute name=\"attr\">\n" +
+            "            <xs:simpleType><xs:restriction base=\"xs:string\"><xs:pattern value=\"[a-z]{3,}\"/></xs:restriction></xs:simpleType>\n" +
+            "        </xs:attribute>\n" +
+            "        <xs:attribute name=\"required\" type=\"xs:string\" use=\"required\"/>\n" +
+            "    </xs:complexType>\n" +
+            "    <xs:complexType name=\"b\">\n" +
+            "        <xs:sequence>\n" +
+            "            <xs:element name=\"a\" type=\"tns:a\" minOccurs=\"1\"/>\n" +
+            "        </xs:sequence>\n" +
+            "        <xs:attribute name=\"code\">\n" +
+            "            <xs:simpleType><xs:restriction base=\"xs:string\"><xs:pattern value=\"[0-9]+\"/></xs:restriction></xs:simpleType>\n" +
+            "        </xs:attribute>\n" +
             "    </xs:complexType>\n" +
             "</xs:schema>")
             .ignoreWhitespace()
             .areSimilar();
+    }
 
+    @Test
+    public void constraintsAreCollectedOnce() {
+        UpdateTypes updateTypes = new UpdateTypes(A.class);
+        Map<String, TypeConstraints.Constraint> constraints = updateTypes.getConstraints();
+        assertThat(constraints).containsOnlyKeys(
+            "{http://meeuw.org/a}a|ATTRIBUTE|attr",
+            "{http://meeuw.org/a}a|ATTRIBUTE|required",
+            "{http://meeuw.org/a}a|ELEMENT|name",
+            "{http://meeuw.org/a}a|ELEMENT|number",
+            "{http://meeuw.org/a}a|ELEMENT|amount",
+            "{http://meeuw.org/a}a|ELEMENT|item",
+            "{http://meeuw.org/a}b|ATTRIBUTE|code",
+            "{http://meeuw.org/a}b|ELEMENT|a"
+        );
+        assertThat(updateTypes.getConstraints()).isSameAs(constraints);
+
+        // the per class constraints are cached too
+        Map<String, TypeConstraints.Constraint> again = new UpdateTypes(B.class).getConstraints();
+        assertThat(again.get("{http://meeuw.org/a}b|ATTRIBUTE|code")).isSameAs(constraints.get("{http://meeuw.org/a}b|ATTRIBUTE|code"));
     }
 
+    @Test
+    public void constraintsWhichAreNoXsd() throws JAXBException, IOException, TransformerException, SAXException {
+        UpdateTypes collector = new UpdateTypes(C.class);
+        assertThat(collector.getConstraints()).containsOnlyKeys("{http://meeuw.org/a}c|ATTRIBUTE|price", "{http://meeuw.org/a}c|ATTRIBUTE|count");
+        assertThat(collector.getConstraints().get("{http://meeuw.org/a}c|ATTRIBUTE|count").facets).containsExactly(Map.entry("totalDigits", "3"));
+        assertThat(collector.getConstraints().get("{http://meeuw.org/a}c|ATTRIBUTE|price").facets).containsEntry("pattern", "$[0-9]+(\\.[0-9]{2})?");
 
+        StringWriter writer = new StringWriter();
+        for (Source source : Utils.schemaSources(collector.getClasses()).values()) {
+            collector.get().transform(source, new StreamResult(writer));
+        }
+        // the result is a valid schema
+        SchemaFactory.newInstance(XMLConstants.W3C_XML_SCHEMA_NS_URI).newSchema(new StreamSource(new StringReader(writer.toString())));
+    }
 
+    @Test
+    public void xsdPattern() {
+        assertThat(TypeConstraints.xsdPattern("^[0-9]+$")).isEqualTo("[0-9]+");
+        assertThat(TypeConstraints.xsdPattern("[a-z]{3,}")).isEqualTo("[a-z]{3,}");
+        assertThat(TypeConstraints.xsdPattern("[^\\s]+|\\p{Lu}\\d{2,4}")).isEqualTo("[^\\s]+|\\p{Lu}\\d{2,4}");
+        assertThat(TypeConstraints.xsdPattern("a\\.b\\/c\\@d")).isEqualTo("a\\.b/c@d");
 
+        assertThat(TypeConstraints.xsdPattern("(?i)abc")).isNull();
+        assertThat(TypeConstraints.xsdPattern("(?:ab)+")).isNull();
+        assertThat(TypeConstraints.xsdPattern("a(?=b)")).isNull();
+        assertThat(TypeConstraints.xsdPattern("\\bword\\b")).isNull();
+        assertThat(TypeConstraints.xsdPattern("(a)\\1")).isNull();
+        assertThat(TypeConstraints.xsdPattern("a*?")).isNull();
+        assertThat(TypeConstraints.xsdPattern("a++")).isNull();
+        assertThat(TypeConstraints.xsdPattern("a{2}?")).isNull();
+        assertThat(TypeConstraints.xsdPattern("[a-z&&[^e]]")).isNull();
+        assertThat(TypeConstraints.xsdPattern("\\p{javaLowerCase}+")).isNull();
+        assertThat(TypeConstraints.xsdPattern("a|^b")).isNull();
+        assertThat(TypeConstraints.xsdPattern("\\x41")).isNull();
+    }
 }
@@ -0,0 +1,48 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import jakarta.xml.bind.JAXBContext;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.xmlunit.assertj3.XmlAssert;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class UtilsTest {
+
+    @ParameterizedTest
+    @EnumSource(DocumentationAdder.Engine.class)
+    public void writeDocumentationSchemas(DocumentationAdder.Engine engine) throws Exception {
+        DocumentationAdder adder = new DocumentationAdder(DocumentationAdderTest.A.class);
+        adder.setEngine(engine);
+        final Map<String, ByteArrayOutputStream> outputs = new LinkedHashMap<>();
+        Utils.writeDocumentationSchemas(adder, ns -> outputs.computeIfAbsent(ns, k -> new ByteArrayOutputStream()));
+
+        assertThat(outputs.keySet()).containsExactly(DocumentationAdderTest.NS);
+        String streamed = new String(outputs.get(DocumentationAdderTest.NS).toByteArray(), StandardCharsets.UTF_8);
+        XmlAssert.assertThat(streamed).and(adder.write())
+            .ignoreWhitespace()
+            .areSimilar();
+        assertThat(streamed).contains("some docu of element b in a");
+    }
+
+    @Test
+    public void jaxbContextCache() throws Exception {
+        long misses = JAXBContextCache.getMisses();
+        long hits = JAXBContextCache.getHits();
+        JAXBContext context = JAXBContextCache.get(DocumentationAdderTest.B.class, DocumentationAdderTest.C.class);
+        assertThat(JAXBContextCache.get(DocumentationAdderTest.C.class, DocumentationAdderTest.B.class)).isSameAs(context);
+        assertThat(JAXBContextCache.getMisses()).isEqualTo(misses + 1);
+        assertThat(JAXBContextCache.getHits()).isEqualTo(hits + 1);
+
+        assertThat(Utils.schemaSources(context).keySet()).containsExactly(DocumentationAdderTest.NS);
+    }
+}
@@ -0,0 +1,85 @@
+package org.meeuw.jaxbdocumentation;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @author Michiel Meeuwissen
+ * @since 0.6
+ */
+class Xs3pRendererTest {
+
+    private static final SchemaCache SCHEMAS = new SchemaCache();
+
+    @Test
+    public void render() throws Exception {
+        Xs3pRenderer renderer = new Xs3pRenderer();
+        Map<String, SchemaCache.Schema> schemas = SCHEMAS.get(DocumentationAdderTest.OtherNamespace.class);
+        Map<String, Xs3pRenderer.Page> pages = renderer.render(schemas);
+
+        assertThat(pages).containsOnlyKeys(schemas.keySet());
+        String b = html(pages.get(DocumentationAdderTest.NS2));
+        assertThat(b).contains("<html");
+        assertThat(b).contains("in another namespace");
+        // components of the imported schema are linked to its own page
+        assertThat(b).contains("href=\"a.html#type_a\"");
+        String a = html(pages.get(DocumentationAdderTest.NS));
+        assertThat(a).contains("some docu about a");
+        assertThat(renderer.getMisses()).isEqualTo(schemas.size());
+        assertThat(renderer.getHits()).isZero();
+    }
+
+    @Test
+    public void cachedPerHash() throws Exception {
+        Xs3pRenderer renderer = new Xs3pRenderer();
+        Map<String, SchemaCache.Schema> schemas = SCHEMAS.get(DocumentationAdderTest.A.class);
+        Xs3pRenderer.Page page = renderer.render(DocumentationAdderTest.NS, schemas);
+        assertThat(renderer.render(DocumentationAdderTest.NS, schemas)).isSameAs(page);
+        assertThat(renderer.getHits()).isEqualTo(1);
+        assertThat(renderer.getBytes()).isEqualTo(page.getBytes().length);
+
+        // same schema, other content
+        Map<String, SchemaCache.Schema> changed = new LinkedHashMap<>(schemas);
+        String xsd = new String(schemas.get(DocumentationAdderTest.NS).getBytes(), StandardCharsets.UTF_8);
+        changed.put(DocumentationAdderTest.NS, new SchemaCache.Schema(DocumentationAdderTest.NS,
+            xsd.replace("some docu about a", "changed docu about a").getBytes(StandardCharsets.UTF_8)));
+        Xs3pRenderer.Page changedPage = renderer.render(DocumentationAdderTest.NS, changed);
+        assertThat(changedPage.getETag()).isNotEqualTo(page.getETag());
+        assertThat(html(changedPage)).contains("changed docu about a");
+        assertThat(renderer.getMisses()).isEqualTo(2);
+
+        renderer.setUseJavaScript(false);
+        assertThat(renderer.render(DocumentationAdderTest.NS, schemas)).isNotSameAs(page);
+        assertThat(renderer.getMisses()).isEqualTo(3);
+    }
+
+    @Test
+    public void budget() throws Exception {
+        Xs3pRenderer renderer = new Xs3pRenderer(1);
+        Map<String, SchemaCache.Schema> schemas = SCHEMAS.get(DocumentationAdderTest.OtherNamespace.class);
+        renderer.render(schemas);
+        assertThat(renderer.getEvictions()).isEqualTo(schemas.size() - 1);
+        assertThat(renderer.getBytes()).isGreaterThan(1);
+    }
+
+    @Test
+    public void unknownImportIsNotFetched() throws Exception {
+        String xsd = "<xs:schema xmlns:xs=\"http://www.w3.org/2001/XMLSchema\" targetNamespace=\"http://meeuw.org/x\">\n" +
+            "  <xs:import namespace=\"http://meeuw.org/y\" schemaLocation=\"http://localhost:1/unreachable.xsd\"/>\n" +
+            "  <xs:element name=\"x\" type=\"xs:string\"/>\n" +
+            "</xs:schema>";
+        Map<String, SchemaCache.Schema> schemas = Map.of("http://meeuw.org/x", new SchemaCache.Schema("http://meeuw.org/x", xsd.getBytes(StandardCharsets.UTF_8)));
+        assertThat(html(new Xs3pRenderer().render("http://meeuw.org/x", schemas))).contains("http://localhost:1/unreachable.xsd");
+        assertThatThrownBy(() -> new Xs3pRenderer().render("http://meeuw.org/z", schemas))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static String html(Xs3pRenderer.Page page) {
+        return new String(page.getBytes(), StandardCharsets.ISO_8859_1);
+    }
+}